@@ -0,0 +1,12 @@
+-- Run once on a database created before the library table could be paged (library.paged=true).
+
+-- The pages are sorted on the title, artist, and length, and rows whose sort column is NULL are skipped.
+-- The player stores missing values as '' and 0, so only rows written by older versions are changed.
+UPDATE tblMedia SET fldTitle = '' WHERE fldTitle IS NULL;
+UPDATE tblMedia SET fldArtist = '' WHERE fldArtist IS NULL;
+UPDATE tblMedia SET fldLength = 0 WHERE fldLength IS NULL;
+
+-- Each page is found with an index seek on the sort column and the path.
+CREATE INDEX IX_tblMedia_Title ON tblMedia (fldTitle, fldPath);
+CREATE INDEX IX_tblMedia_Artist ON tblMedia (fldArtist, fldPath);
+CREATE INDEX IX_tblMedia_Length ON tblMedia (fldLength, fldPath);
@@ -0,0 +1,67 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates libraries of made-up media files for the benchmarks. The same size always gives the same library, so results of different runs can be compared.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+final class BenchmarkData {
+    private static final String[] WORDS = {"love", "night", "dance", "heart", "fire", "blue", "dream", "summer", "rain", "home", "light", "road", "river", "gold", "wild", "moon", "baby",
+            "forever", "street", "shadow", "beautiful", "berlin", "beat", "bells", "angel", "ocean", "city", "stars", "time", "world"};
+    private static final String[] ARTISTS = {"Beatles", "Beyoncé", "Björk", "Bob Dylan", "Daft Punk", "David Bowie", "Eminem", "Fleetwood Mac", "Kraftwerk", "Led Zeppelin", "Madonna",
+            "Metallica", "Nirvana", "Oasis", "Pink Floyd", "Prince", "Queen", "Radiohead", "Rihanna", "The Rolling Stones"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param size number of media files
+     * @return media files with titles of two to four words, an artist, and a length of up to ten minutes
+     */
+    static List<Media> library(int size) {
+        Random random = new Random(size);
+        List<Media> media = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            String artist = ARTISTS[random.nextInt(ARTISTS.length)];
+            StringBuilder title = new StringBuilder();
+
+            for (int words = 2 + random.nextInt(3); words > 0; words--) {
+                title.append(title.length() == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+
+            media.add(new Media("/music/" + artist + "/" + i + ".mp3", title.toString(), artist, random.nextInt(600)));
+        }
+
+        return media;
+    }
+
+    /**
+     * @param media   library to be changed
+     * @param percent how many of the media files are changed, removed, and added
+     * @return the library after a rescan in which {@code percent} of the media files got new tags, as many were deleted, and as many were added
+     */
+    static List<Media> rescan(List<Media> media, int percent) {
+        int changes = Math.max(1, media.size() * percent / 100);
+        List<Media> rescanned = new ArrayList<>(media.size());
+
+        for (int i = changes; i < media.size(); i++) {
+            Media old = media.get(i);
+
+            rescanned.add(i < 2 * changes ? new Media(old.getPath(), old.getTitle() + " (Remastered)", old.getArtist(), old.getLength()) : new Media(old.getPath(), old.getTitle(),
+                    old.getArtist(), old.getLength())); // Read again, so none of them are the same instances as in the catalog
+        }
+
+        for (int i = 0; i < changes; i++) {
+            rescanned.add(new Media("/music/New/" + i + ".mp3", "new " + i, "", 180));
+        }
+
+        return rescanned;
+    }
+}
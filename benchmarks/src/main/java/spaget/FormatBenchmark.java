@@ -0,0 +1,52 @@
+package spaget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of formatting a time for the transport and the library table, with and without the value changing between calls. Run with {@code -prof gc} to see the allocations of each.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    private final TimeFormatter formatter = new TimeFormatter();
+    private int seconds = 3_599;
+
+    @Benchmark
+    public String formatSeconds() {
+        return Media.formatSeconds(nextSecond());
+    }
+
+    @Benchmark
+    public String formatterChanged() {
+        return formatter.format(nextSecond());
+    }
+
+    @Benchmark
+    public String formatterUnchanged() {
+        return formatter.format(seconds); // As the transport is updated several times within the same second
+    }
+
+    private int nextSecond() {
+        seconds = seconds == 7_200 ? 3_599 : seconds + 1;
+
+        return seconds;
+    }
+}
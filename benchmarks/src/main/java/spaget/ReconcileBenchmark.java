@@ -0,0 +1,61 @@
+package spaget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time it takes the {@link LibraryCatalog} to reconcile the result of a scan, both when it's filled for the first time and after a rescan in which one percent of the library changed.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReconcileBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private List<Media> library;
+    private List<Media> rescanned;
+    private LibraryCatalog catalog;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        library = BenchmarkData.library(size);
+        rescanned = BenchmarkData.rescan(library, 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        catalog = new LibraryCatalog();
+        catalog.reconcile(library);
+    }
+
+    @Benchmark
+    public LibraryDelta fillEmpty() {
+        return new LibraryCatalog().reconcile(library);
+    }
+
+    @Benchmark
+    public LibraryDelta rescan() {
+        return catalog.reconcile(rescanned);
+    }
+}
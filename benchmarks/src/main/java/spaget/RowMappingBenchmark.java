@@ -0,0 +1,78 @@
+package spaget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time it takes to read the media files of the library with {@link DB#queryList(String, RowMapper, Object...)}, which borrows a pooled connection, executes the select and maps every row with
+ * {@link Media#map(ResultSet)}, as every query of the {@link SqlServerStore} does.
+ * <p>
+ * No database server is needed: the pool connects to an in-memory H2 database, whose fixed-width columns are padded with spaces as those of the player's database are. The time includes H2
+ * reading the rows, but not the network round trips of a database server.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+    private static final String URL = "jdbc:h2:mem:spaget;DB_CLOSE_DELAY=-1"; // Kept until the pool is closed, even if it has no connection
+    private static final int COLUMN_WIDTH = 50;                                // Width the text columns are padded to
+
+    private static final String CREATE_MEDIA = "CREATE TABLE tblMedia (fldPath CHAR(" + COLUMN_WIDTH + ") PRIMARY KEY, fldTitle CHAR(" + COLUMN_WIDTH + "), fldArtist CHAR(" +
+            COLUMN_WIDTH + "), fldLength INT)";
+    private static final String INSERT_MEDIA = "INSERT INTO tblMedia (fldPath, fldTitle, fldArtist, fldLength) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_MEDIA = "SELECT fldPath, fldTitle, fldArtist, fldLength FROM tblMedia";
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    @Setup
+    public void connect() {
+        DB.setPool(new ConnectionPool(URL, "sa", "", 1, 60_000, 1_000, 32));
+        DB.update(CREATE_MEDIA);
+
+        List<Media> library = BenchmarkData.library(rows);
+        Batch batch = new Batch(DB.getBatchSize());
+
+        for (int i = 0; i < rows; i++) {
+            Media media = library.get(i);
+
+            batch.add(INSERT_MEDIA, media.getPath(), media.getTitle(), i % 10 == 0 ? null : media.getArtist(), media.getLength()); // Some artists are NULL
+        }
+
+        if (!batch.execute()) {
+            throw new IllegalStateException("The media files couldn't be inserted");
+        }
+    }
+
+    @TearDown
+    public void disconnect() {
+        DB.update("DROP TABLE tblMedia");
+        DB.getPool().close();
+    }
+
+    @Benchmark
+    public List<Media> map() {
+        return DB.queryList(SELECT_MEDIA, Media::map);
+    }
+}
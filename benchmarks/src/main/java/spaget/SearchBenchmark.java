@@ -0,0 +1,49 @@
+package spaget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single keystroke in the search field, i.e. of one {@link SearchIndex#search(String)} for each prefix of a query as it's typed.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"b", "be", "bea", "beat", "beatles l", "beatles love"})
+    private String query;
+
+    private SearchIndex index;
+
+    @Setup
+    public void build() {
+        index = new SearchIndex();
+        index.rebuild(BenchmarkData.library(size));
+    }
+
+    @Benchmark
+    public SearchResult keystroke() {
+        return index.search(query);
+    }
+}
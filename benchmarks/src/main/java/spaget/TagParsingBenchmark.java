@@ -0,0 +1,118 @@
+package spaget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Time it takes to parse a single file during a scan, i.e. to probe its content type and read its tags and track length.
+ * <p>
+ * The files of the folder given by {@code -p folder=...} are parsed one after another, e.g. a folder of real MP3 files. Without a folder, short silent {@code WAV} files are generated, which measures
+ * the overhead of parsing a file rather than of reading large tags.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagParsingBenchmark {
+    private static final int GENERATED_FILES = 100;
+    private static final int SAMPLE_RATE = 8_000;
+    private static final Logger TAGGER_LOG = Logger.getLogger("org.jaudiotagger"); // Kept so its level isn't lost, since JAudioTagger otherwise logs every file it reads
+
+    @Param("")
+    private String folder;
+
+    private Path generated;
+    private File[] files;
+    private int next;
+
+    @Setup
+    public void open() throws IOException {
+        TAGGER_LOG.setLevel(Level.WARNING);
+
+        List<File> found = new ArrayList<>();
+
+        if (folder.isEmpty()) {
+            generated = Files.createTempDirectory("spaget-benchmark");
+
+            for (int i = 0; i < GENERATED_FILES; i++) {
+                found.add(Files.write(generated.resolve(i + ".wav"), silence(1 + i % 10)).toFile());
+            }
+        } else {
+            try (Stream<Path> paths = Files.walk(Paths.get(folder))) {
+                paths.filter(Files::isRegularFile).forEach(path -> found.add(path.toFile()));
+            }
+        }
+
+        if (found.isEmpty()) {
+            throw new IllegalStateException("No files to parse in " + folder);
+        }
+
+        files = found.toArray(new File[0]);
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        if (generated != null) {
+            try (Stream<Path> paths = Files.walk(generated)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public Object parse() {
+        File file = files[next];
+        next = (next + 1) % files.length;
+
+        return LibraryScanner.parse(file, null);
+    }
+
+    /**
+     * @return a mono 8-bit {@code WAV} file of {@code seconds} of silence
+     */
+    private static byte[] silence(int seconds) {
+        int samples = SAMPLE_RATE * seconds;
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples).order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes()).putInt(36 + samples).put("WAVE".getBytes());
+        wav.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1).putInt(SAMPLE_RATE).putInt(SAMPLE_RATE).putShort((short) 1).putShort((short) 8);
+        wav.put("data".getBytes()).putInt(samples);
+
+        while (wav.hasRemaining()) {
+            wav.put((byte) 128);
+        }
+
+        return wav.array();
+    }
+}
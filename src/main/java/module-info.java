@@ -1,5 +1,7 @@
 module spaget {
     requires java.sql;
+    requires java.management;
+    requires java.logging;
     requires com.microsoft.sqlserver.jdbc;
     requires jaudiotagger;
 
@@ -1,28 +1,31 @@
 package spaget;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
-import javafx.scene.media.MediaPlayer;
 import javafx.stage.Stage;
-import org.jaudiotagger.audio.AudioFile;
-import org.jaudiotagger.audio.AudioFileIO;
-import org.jaudiotagger.audio.AudioHeader;
-import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
-import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
-import org.jaudiotagger.tag.FieldKey;
-import org.jaudiotagger.tag.Tag;
-import org.jaudiotagger.tag.TagException;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main class of the {@code JavaFX} application.
@@ -32,13 +35,91 @@ import java.util.Iterator;
  * @since 04.01.2021
  */
 public class App extends Application {
-    static final String MEDIA_PATH = Paths.get("media").toAbsolutePath().toString();
+    private static final long LAUNCHED = System.nanoTime(); // Initialized first, so the startup is measured from when the application was launched
+
+    static final String MEDIA_PATH = LibraryRoot.DEFAULT_PATH.toString();
+
+    private static final long WATCH_DEBOUNCE = 500;     // Milliseconds without file changes before they are applied to the library
+    private static final long WATCH_MAX_DELAY = 5000;   // Maximum milliseconds file changes are held back while files keep changing
+    private static final long SNAPSHOT_DELAY = 2000;    // Milliseconds without changes to the library before its snapshot is written
+
+    private static final LibraryScanner scanner;
+    private static final ArtworkStore artwork;                              // Album covers extracted by the scanner
+    private static final long crossfade;                                    // Milliseconds consecutive media files of a playlist overlap
+    private static final double refreshRate;                                // Maximum updates per second of the current time and seek slider
+    private static final boolean pagedLibrary;                              // Whether the library table reads its rows from the repository a page at a time
+    private static final LengthProber prober;                               // Measures the length of videos in the background
+    private static final LibraryCatalog catalog = new LibraryCatalog();     // Media files of the library, shared with the playlists
+    private static final List<LibraryWatcher> watchers = new ArrayList<>();
+    private static final LibrarySnapshot snapshot = new LibrarySnapshot(Paths.get("library.snapshot"), SNAPSHOT_DELAY);
+    private static final Map<Milestone, Long> startupTimes = Collections.synchronizedMap(new EnumMap<>(Milestone.class)); // Milliseconds from launch to each milestone
+    private static long generation;                                         // Number of changes submitted to the database, guarded by the class lock
 
+    /**
+     * Reads the library folders and scanner settings from {@code library.properties}, using the defaults if the file doesn't exist.
+     * <p>
+     * Library folders are read by {@link LibraryRoot#fromProperties(Properties)}, and {@link #MEDIA_PATH} is created in case no folders are configured. {@code probe.concurrency} and {@code probe.timeout} limit the number of videos measured at a time and how long a video may take to be measured.
+     * {@code artwork.cache} is the number of megabytes the decoded album covers may take up, and {@code playback.crossfade} the milliseconds consecutive media files of a playlist are crossfaded.
+     * {@code playback.refresh} is the number of times per second the current time of the player is shown. {@code library.paged} makes the library table read its rows from the database a page at a
+     * time, for libraries too large to be sorted and searched in memory. {@code metrics.log} is the number of seconds between printing the {@link Metrics}, or {@code 0} to only publish them
+     * through {@code JMX}.
+     */
+    static {
+        Properties props = new Properties();
+
+        try (InputStream input = new FileInputStream("library.properties")) {
+            props.load(input);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+
+        List<LibraryRoot> roots = LibraryRoot.fromProperties(props);
+
+        try {
+            Files.createDirectories(Paths.get(MEDIA_PATH)); // The default folder is created so there is somewhere to put media files
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+
+        artwork = new ArtworkStore(Paths.get("artwork"), Long.parseLong(props.getProperty("artwork.cache", "64")) << 20);
+        scanner = new LibraryScanner(roots, Paths.get("library.cache"), artwork);
+        crossfade = Long.parseLong(props.getProperty("playback.crossfade", "0"));
+        refreshRate = Double.parseDouble(props.getProperty("playback.refresh", "20"));
+        pagedLibrary = Boolean.parseBoolean(props.getProperty("library.paged", "false"));
+        prober = new VideoProber(Integer.parseInt(props.getProperty("probe.concurrency", "2")), Long.parseLong(props.getProperty("probe.timeout", "10000")), App::updateVideoLengths);
+
+        Metrics.start(Long.parseLong(props.getProperty("metrics.log", "0")));
+    }
+
+    /**
+     * Shows the library from its snapshot right away, while the database and the library folders are reconciled with it in the background.
+     * <p>
+     * The time it took to show the first frame and to show the library are recorded, see {@link Milestone}.
+     */
     @Override
     public void start(Stage stage) throws IOException {
+        loadSnapshot();
+
         Parent root = FXMLLoader.load(getClass().getResource("/player.fxml"));
+        Scene scene = new Scene(root);
+
+        scene.addPostLayoutPulseListener(new Runnable() {
+            private boolean done;
+
+            @Override
+            public void run() {
+                recordStartup(Milestone.FIRST_FRAME);
+
+                if (!done && (catalog.size() > 0 || startupTimes.containsKey(Milestone.LIBRARY_RECONCILED))) {
+                    done = true;
 
-        stage.setScene(new Scene(root));
+                    recordStartup(Milestone.INTERACTIVE);
+                    Platform.runLater(() -> scene.removePostLayoutPulseListener(this)); // Listeners can't be removed while they are being called
+                }
+            }
+        });
+
+        stage.setScene(scene);
         stage.setTitle("Spaget Player");
         stage.getIcons().add(new Image(getClass().getResource("/images/spaghetti.png").toExternalForm()));
         stage.show();
@@ -48,177 +129,387 @@ public class App extends Application {
 
         final double DEFAULT_WIDTH = 608.5;
         stage.setMinWidth(DEFAULT_WIDTH + (stage.getWidth() - root.prefWidth(0)));
-
-        updateMedia();
     }
 
     /**
      * Updates the database by adding new local media and/or remove non-existent media.
      * <p>
-     * A list of database media paths and a list of local media paths are gathered. The lists are compared to see if they're the same. If they're not the same, the database is updated to reflect local
-     * changes.
+     * A list of database media paths and a list of local media paths are gathered. The lists are compared to see if they're the same. If they're not the same, the changes are collected in a
+     * {@link LibraryDelta} and stored by the {@link MediaRepository} in a single transaction. Videos whose length is known locally but not in the database, e.g. because it couldn't be written when it was measured, are
+     * updated as well.
      *
      * @return Up-to-date {@code ArrayList} of local media files.
      * @see Media
      */
     static ArrayList<Media> updateMedia() {
+        return updateMedia(ScanListener.NONE);
+    }
+
+    /**
+     * Updates the database by adding new local media and/or remove non-existent media, reporting the progress of the folder scan to the {@code listener}.
+     * <p>
+     * If the scan is cancelled the database isn't changed, since media files that weren't reached would otherwise be deleted.
+     *
+     * @param listener receives the media files as they are found and may cancel the update
+     * @return Up-to-date {@code ArrayList} of local media files, or {@code null} if the update was cancelled.
+     * @see LibraryService
+     */
+    static synchronized ArrayList<Media> updateMedia(ScanListener listener) {
+        long start = System.nanoTime();
         ArrayList<Media> databaseMedia = getDatabaseMedia();    // Stores all media files from the database
-        ArrayList<Media> localMedia = getLocalMedia();          // Stores all media files from the local folder
 
-        /* Delete all media records if the local folder is empty */
+        Metrics.scanner().recordPhase(ScannerMetrics.Phase.READ_DATABASE, start);
 
-        if (localMedia.size() == 0 && databaseMedia.size() != 0) {
-            for (Media media : databaseMedia) {
-                DB.deleteSQL("DELETE FROM tblMedia WHERE fldPath = '" + media.getPath(true) + "'");
-            }
+        ArrayList<Media> localMedia = getLocalMedia(listener);  // Stores all media files from the local folder
 
-            return localMedia;
+        if (listener.isCancelled()) {
+            return null;
         }
 
-        /* Delete records of non-existent media files */
+        Map<String, Media> database = LibraryCatalog.index(databaseMedia);                  // Media files from the database by path
+        Map<String, Media> local = LibraryCatalog.index(localMedia);                        // Media files from the local folder by path
+        LibraryDelta changes = LibraryDelta.between(database, local, scanner::isUnscanned); // Collects every change so they are stored in a single transaction
 
-        Iterator<Media> iterator = databaseMedia.iterator(); // An Iterator is used instead of a for-loop to avoid a ConcurrentModificationException
+        long storeStart = System.nanoTime();
 
-        while (iterator.hasNext()) {
-            Media media = iterator.next();
+        store(changes).thenAccept(written -> {
+            if (written) {
+                Metrics.scanner().recordPhase(ScannerMetrics.Phase.STORE_CHANGES, storeStart);
+            }
+        });
 
-            if (!localMedia.contains(media)) {
-                DB.deleteSQL("DELETE FROM tblMedia WHERE fldPath = '" + media.getPath(true) + "'");
+        start = System.nanoTime();
+        catalog.reconcile(database.values());
+        Metrics.scanner().recordPhase(ScannerMetrics.Phase.RECONCILE, start);
 
-                iterator.remove();
-            }
+        recordStartup(Milestone.LIBRARY_RECONCILED);
+
+        return catalog.getAll();
+    }
+
+    /**
+     * Fills the catalog with the media files of the library's snapshot, and keeps the snapshot up to date with the catalog from then on.
+     *
+     * @see LibrarySnapshot
+     */
+    static void loadSnapshot() {
+        List<Media> media = snapshot.read();
+
+        catalog.reconcile(media);
+        snapshot.attach(catalog);
+
+        recordStartup(Milestone.SNAPSHOT_LOADED);
+        System.out.println("Library snapshot: " + media.size() + " media files");
+    }
+
+    /**
+     * Records the time from launch to a milestone of the startup, the first time the milestone is reached.
+     * <p>
+     * Once the library has been reconciled every recorded milestone is appended to {@code startup.log}, so the startup time can be compared between runs and library sizes.
+     *
+     * @param milestone milestone that has been reached
+     */
+    static void recordStartup(Milestone milestone) {
+        long millis = (System.nanoTime() - LAUNCHED) / 1_000_000;
+
+        if (startupTimes.putIfAbsent(milestone, millis) != null) {
+            return;
         }
 
-        /* New media files are inserted into the database */
+        System.out.println("Startup: " + milestone + " after " + millis + " ms");
 
-        for (Media media : localMedia) {
-            if (!databaseMedia.contains(media)) {
-                DB.insertSQL("INSERT INTO tblMedia (fldPath, fldTitle, fldArtist, fldLength) VALUES ('" + media.getPath(true) + "', '" + media.getTitle().replaceAll("'","''") + "', '" + media.getArtist().replaceAll("'","''") + "', '" + media.getLength() + "')");
-                databaseMedia.add(media);
+        if (milestone == Milestone.LIBRARY_RECONCILED) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get("startup.log"), StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                out.println(LocalDateTime.now() + " media=" + catalog.size() + " " + getStartupTimes());
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
             }
         }
+    }
 
-        return databaseMedia;
+    /**
+     * @return milliseconds from launch to each milestone that has been reached
+     */
+    static Map<Milestone, Long> getStartupTimes() {
+        synchronized (startupTimes) {
+            return new EnumMap<>(startupTimes);
+        }
     }
 
     /**
-     * Gets playlists from the database and returns it as an {@code ArrayList}.
+     * Applies changes to individual files to the database and the library without scanning the rest of the library folder.
+     * <p>
+     * Paths of files that still exist are scanned and inserted or updated. Paths that no longer exist are deleted, together with any media files inside them if the path was a folder.
      *
-     * @return Up-to-date {@code ArrayList} of playlists.
-     * @see Playlist
+     * @param paths paths of the created, modified, or deleted files and folders
+     * @return the changes made to the library
+     * @see LibraryWatcher
      */
-    static ArrayList<Playlist> getPlaylists() {
-        ArrayList<Playlist> playlists = new ArrayList<>(); // Stores all playlists and related media files from the database
+    static synchronized LibraryDelta applyChanges(Collection<Path> paths) {
+        LibraryDelta delta = new LibraryDelta();
+        Map<String, Media> localMedia = scanner.scan(paths);
+
+        for (Path path : paths) {
+            String changed = path.toAbsolutePath().toString();
+            Media media = localMedia.get(changed);
+            Media old = catalog.get(changed);
+
+            if (media != null && old == null) {
+                delta.getAdded().add(media);
+            } else if (media != null) {
+                if (!media.hasSameMetadata(old)) {
+                    delta.getUpdated().add(media);
+                }
+            } else if (old != null && !Files.exists(path)) {
+                delta.getRemoved().add(old);
+            } else if (!Files.exists(path)) {
 
-        DB.selectSQL("SELECT fldName FROM tblPlaylist");
+                /* The path was a folder, so every media file inside it is removed */
 
-        String field;
+                String folder = changed + File.separator;
 
-        while (!((field = DB.getData()).equals(DB.NOMOREDATA))) {
-            playlists.add(new Playlist(field));
+                for (Media removed : catalog.getAll()) {
+                    if (removed.getPath().startsWith(folder)) {
+                        delta.getRemoved().add(removed);
+                    }
+                }
+            }
         }
 
-        for (Playlist playlist : playlists) {
-            DB.selectSQL("SELECT fldPath, fldTitle, fldArtist, fldLength FROM tblMedia WHERE fldPath IN (SELECT fldMediaPath FROM tblPlaylistMedia WHERE fldPlaylistName = '" + playlist.getName() + "')");
+        probeVideos();
+
+        store(delta);
 
-            while (!((field = DB.getData()).equals(DB.NOMOREDATA))) {
-                String title = DB.getData();
-                String artist = ((artist = DB.getData()).equals("null") ? "" : artist);
-                int length = Integer.parseInt(DB.getData());
+        catalog.apply(delta);
 
-                playlist.getMediaList().add(new Media(field, title, artist, length));
+        return delta;
+    }
+
+    /**
+     * Starts watching the library folders so changes to them are applied to the database and the {@link #getCatalog() catalog} as they happen.
+     *
+     * @param onOverflow called on the watcher thread when changes have been lost and the library must be updated with {@link #updateMedia()}
+     */
+    static synchronized void watchLibrary(Runnable onOverflow) {
+        watchers.forEach(LibraryWatcher::close);
+        watchers.clear();
+
+        for (LibraryRoot root : scanner.getRoots()) {
+            try {
+                watchers.add(new LibraryWatcher(root.getPath(), WATCH_DEBOUNCE, WATCH_MAX_DELAY, App::applyChanges, onOverflow));
+            } catch (IOException e) {
+                System.err.println("Library folder " + root + " can't be watched, use Refresh to update the library: " + e.getMessage());
             }
         }
+    }
 
-        return playlists;
+    /**
+     * @return catalog of the media files in the library
+     */
+    static LibraryCatalog getCatalog() {
+        return catalog;
     }
 
     /**
-     * Retrieves all records in the media table of the database as an {@code ArrayList}.
-     * <p>
-     * If {@code fldArtist} in the database is empty, artist is displayed as an empty {@code String} instead of {@code null}.
-     *
-     * @return {@code ArrayList} of database media files.
-     * @see Media
+     * @return album covers of the library's audio files
      */
-    private static ArrayList<Media> getDatabaseMedia() {
-        ArrayList<Media> databaseMedia = new ArrayList<>(); // Stores all media files from the database
+    static ArtworkStore getArtwork() {
+        return artwork;
+    }
 
-        DB.selectSQL("SELECT fldPath, fldTitle, fldArtist, fldLength FROM tblMedia");
+    static long getCrossfade() {
+        return crossfade;
+    }
 
-        String field;
+    static double getRefreshRate() {
+        return refreshRate;
+    }
 
-        while (!((field = DB.getData()).equals(DB.NOMOREDATA))) {
-            String title = DB.getData();
-            String artist = ((artist = DB.getData()).equals("null") ? "" : artist);
-            int length = Integer.parseInt(DB.getData());
+    static boolean isPagedLibrary() {
+        return pagedLibrary;
+    }
 
-            databaseMedia.add(new Media(field, title, artist, length));
+    /**
+     * Stops watching the library folders and writes the video lengths that have already been measured and the library's snapshot when the application is closed.
+     */
+    @Override
+    public void stop() {
+        synchronized (App.class) {
+            watchers.forEach(LibraryWatcher::close);
         }
 
-        return databaseMedia;
+        prober.close();
+        snapshot.close();
+
+        Repositories.close();
+        Metrics.stop();
     }
 
     /**
-     * Retrieves all media files in the {@link #MEDIA_PATH} folder as an {@code ArrayList}.
-     * <p>
-     * {@link org.jaudiotagger} is used to retrieve {@code ID3} tags of audio files.
+     * Writes the lengths of measured videos to the scan cache and the database, and updates them in the library so their rows are refreshed.
      *
-     * @return {@code ArrayList} of local media files.
-     * @see Media
+     * @param videos videos measured by the {@link VideoProber}
      */
-    private static ArrayList<Media> getLocalMedia() {
-        ArrayList<Media> localMedia = new ArrayList<>(); // Stores all media files from the local directory
+    private static synchronized void updateVideoLengths(List<Media> videos) {
+        LibraryDelta changes = new LibraryDelta();  // Lengths to be stored
+        LibraryDelta delta = new LibraryDelta();    // Lengths of media files in the library
 
-        try {
-            File mediaDirectory = Files.createDirectories(Paths.get(MEDIA_PATH)).toFile();    // Store local media directory as a File object
-            File[] files = mediaDirectory.listFiles(); // Array of File objects representing the files in the local folder
+        for (Media video : videos) {
+            scanner.setLength(video.getPath(), video.getLength());
 
-            if (files != null) {
-                for (File file : files) {
-                    String path = file.getAbsolutePath();                      // Absolute path of current media file
-                    String fileType = Files.probeContentType(file.toPath());   // Check whether the file is an audio, video, or other type of file
+            if (video.getLength() > 0) {
+                changes.getUpdated().add(video);
 
-                    if (fileType != null) {
-                        if (fileType.contains("audio")) {
-
-                            /* Get ID3 tags and track length using the library JAudioTagger */
+                if (catalog.contains(video.getPath())) {
+                    delta.getUpdated().add(video);
+                }
+            }
+        }
 
-                            AudioFile audioFile = AudioFileIO.read(new File(path));
-                            Tag tag = audioFile.getTag();
-                            AudioHeader header = audioFile.getAudioHeader();
+        scanner.flushCache(); // Measured lengths are kept even if the application is closed before the next scan
 
-                            String title = tag.getFirst(FieldKey.TITLE);
-                            String artist = tag.getFirst(FieldKey.ARTIST);
-                            int length = header.getTrackLength();
+        store(changes);
 
-                            localMedia.add(new Media(path, title, artist, length));
-                        } else if (fileType.contains("video")) {
+        catalog.apply(delta);
+    }
 
-                            /* Get video length by using a temporary JavaFX MediaPlayer */
+    /**
+     * Queues changes to be written to the database in the background. Called while holding the class lock, by an update that applies the same changes to the catalog.
+     * <p>
+     * If the changes can't be written the library is read from the database again, so it shows the stored media files until the next update stores the changes. That happens under the class
+     * lock, after the update that submitted the changes has finished, and only if no changes have been submitted since, as the library would otherwise lose them.
+     *
+     * @param changes changes to be stored
+     * @return completed with {@code true} once the changes have been written, or {@code false} if they couldn't be stored
+     */
+    private static CompletableFuture<Boolean> store(LibraryDelta changes) {
+        if (changes.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
 
-                            javafx.scene.media.Media video = new javafx.scene.media.Media(Paths.get(path).toUri().toString());
-                            MediaPlayer temp = new MediaPlayer(video);
+        long submitted = ++generation;
+        CompletableFuture<Boolean> stored = Repositories.media().submit(changes);
 
-                            temp.setOnReady(() -> {
-                                DB.updateSQL("UPDATE tblMedia SET fldLength = " + (int) Math.round(temp.getTotalDuration().toSeconds()) + " WHERE fldPath = '" + path + "'");
+        stored.thenAcceptAsync(written -> { // Not on the writer, which reading the database waits for
+            if (written) {
+                return;
+            }
 
-                                temp.dispose();
-                            });
+            System.err.println("The library couldn't be updated in the database: " + changes);
 
-                            localMedia.add(new Media(path, file.getName(), "", (int) Math.round(video.getDuration().toSeconds())));
-                        }
-                    }
+            synchronized (App.class) {
+                if (submitted == generation) {
+                    catalog.reconcile(getDatabaseMedia());
                 }
             }
-        } catch (IOException | CannotReadException | ReadOnlyFileException | TagException | InvalidAudioFrameException e) {
-            e.printStackTrace();
+        });
+
+        return stored;
+    }
+
+    /**
+     * Gets playlists from the database and returns it as an {@code ArrayList}.
+     * <p>
+     * Media files that are in the library share their {@link Media} object with it.
+     *
+     * @return Up-to-date {@code ArrayList} of playlists.
+     * @see Playlist
+     */
+    static ArrayList<Playlist> getPlaylists() {
+        return getPlaylists(false);
+    }
+
+    /**
+     * Gets playlists from the database and returns it as an {@code ArrayList}.
+     * <p>
+     * If {@code headersOnly} is {@code true} only the names are read, and the media files of each playlist are read the first time {@link Playlist#getMediaList()} is called.
+     *
+     * @param headersOnly whether the media files of the playlists should be read lazily
+     * @return Up-to-date {@code ArrayList} of playlists.
+     * @see Playlist
+     */
+    static ArrayList<Playlist> getPlaylists(boolean headersOnly) {
+        ArrayList<Playlist> playlists = Repositories.playlists().findPlaylists(headersOnly);
+
+        if (!headersOnly) {
+            for (Playlist playlist : playlists) {
+                playlist.replaceAll(App::getLibraryMedia);
+            }
         }
 
+        return playlists;
+    }
+
+    /**
+     * Retrieves the media files of a single playlist from the database.
+     *
+     * @param name name of the playlist
+     * @return {@code ArrayList} of the playlist's media files.
+     * @see Playlist#getMediaList()
+     */
+    static ArrayList<Media> getPlaylistMedia(String name) {
+        ArrayList<Media> media = Repositories.entries().findEntries(name);
+
+        media.replaceAll(App::getLibraryMedia);
+
+        return media;
+    }
+
+    /**
+     * @param media media file read from the database
+     * @return the library's {@link Media} object with the same path, or {@code media} if it isn't in the library
+     */
+    private static Media getLibraryMedia(Media media) {
+        Media libraryMedia = catalog.get(media.getPath());
+
+        return libraryMedia != null ? libraryMedia : media;
+    }
+
+    /**
+     * Retrieves all media files stored in the database as an {@code ArrayList}.
+     *
+     * @return {@code ArrayList} of database media files.
+     * @see MediaRepository#findAll()
+     */
+    private static ArrayList<Media> getDatabaseMedia() {
+        return Repositories.media().findAll();
+    }
+
+    /**
+     * Retrieves all media files in the library folders and their subfolders as an {@code ArrayList}.
+     * <p>
+     * Unchanged files are read from the scan cache by the {@link LibraryScanner}. The length of videos that haven't been measured yet is measured in the background by the {@link VideoProber}.
+     *
+     * @param listener receives the media files as they are found and may cancel the scan
+     * @return {@code ArrayList} of local media files.
+     * @see Media
+     */
+    private static ArrayList<Media> getLocalMedia(ScanListener listener) {
+        ArrayList<Media> localMedia = scanner.scan(listener); // Stores all media files from the local directory
+
+        probeVideos();
+
         return localMedia;
     }
 
+    /**
+     * Queues the videos of the last scan whose length isn't known yet to be measured by the {@link VideoProber}.
+     */
+    private static void probeVideos() {
+        prober.submit(scanner.getUnprobedVideos());
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
+
+    /**
+     * Milestones of the startup whose time is recorded.
+     */
+    enum Milestone {
+        SNAPSHOT_LOADED,    // The catalog has been filled from the snapshot
+        FIRST_FRAME,        // The window has been laid out for the first time
+        INTERACTIVE,        // A frame showing the library has been laid out
+        LIBRARY_RECONCILED  // The database and the library folders have been reconciled with the catalog
+    }
 }
\ No newline at end of file
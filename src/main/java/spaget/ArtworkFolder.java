@@ -0,0 +1,119 @@
+package spaget;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Folder the album covers are stored in, each named by the {@code SHA-1} hash of its content.
+ * <p>
+ * Only the covers themselves are written, which needs no {@code JavaFX} toolkit, so it's used by the {@link Indexer}. The {@link ArtworkStore} adds the thumbnails and backdrops of the player, and
+ * renders those of covers stored here the first time they are shown.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class ArtworkFolder implements ArtworkSink {
+    private final Path directory;
+
+    /**
+     * Sole constructor.
+     *
+     * @param directory folder the covers are stored in, created if it doesn't exist
+     */
+    public ArtworkFolder(Path directory) {
+        this.directory = directory;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    @Override
+    public String store(byte[] data) {
+        String hash = hash(data);
+        Path file = directory.resolve(hash);
+
+        if (Files.exists(file)) {
+            return hash;
+        }
+
+        try {
+            write(file, out -> out.write(data));
+        } catch (IOException e) {
+            System.err.println("Couldn't store album cover: " + e.getMessage());
+
+            return null;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Does nothing, since the hash of each media file's cover is kept in the scan cache.
+     */
+    @Override
+    public void assign(String path, String hash) {
+    }
+
+    /**
+     * Does nothing, since the hash of each media file's cover is kept in the scan cache.
+     */
+    @Override
+    public void unassignFolder(String folder) {
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes a file through a temporary file, so a file is never seen half written, even if the same cover is stored by two threads at once.
+     *
+     * @param file   file in the folder to be written
+     * @param writer writes the content of the file
+     * @throws IOException if the file couldn't be written
+     */
+    void write(Path file, Writer writer) throws IOException {
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writer.write(out);
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            StringBuilder hash = new StringBuilder(40);
+
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+                hash.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform supports SHA-1
+        }
+    }
+
+    /**
+     * Writes the content of a file.
+     */
+    interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
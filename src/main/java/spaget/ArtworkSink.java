@@ -0,0 +1,36 @@
+package spaget;
+
+/**
+ * Receives the album covers the {@link LibraryScanner} extracts from audio files.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see ArtworkStore
+ * @see ArtworkFolder
+ * @since 18.10.2026
+ */
+public interface ArtworkSink {
+
+    /**
+     * Stores a cover unless an identical one has already been stored.
+     *
+     * @param data encoded image, e.g. the content of an {@code APIC} frame
+     * @return hash identifying the cover, or {@code null} if it couldn't be stored
+     */
+    String store(byte[] data);
+
+    /**
+     * Remembers the cover of a media file, so it can be looked up by path.
+     *
+     * @param path absolute path of the media file
+     * @param hash hash of the cover, or {@code null} if the media file has none
+     */
+    void assign(String path, String hash);
+
+    /**
+     * Forgets the covers of every media file inside a folder that has been deleted.
+     *
+     * @param folder absolute path of the folder
+     */
+    void unassignFolder(String folder);
+}
@@ -0,0 +1,442 @@
+package spaget;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Album covers of the library, extracted from the audio files when they are scanned.
+ * <p>
+ * Every cover is stored once in an {@link ArtworkFolder}, named by the {@code SHA-1} hash of its content, so an album whose tracks all contain the same cover only takes up the space of one. When a cover
+ * is stored, a small thumbnail for the library table and a blurred backdrop for the player are rendered from it right away and stored next to it as raw pixels, so showing them later takes a small
+ * read instead of decoding and blurring the cover. The backdrop is blurred once instead of by an effect on every frame, and is scaled up when it's shown, which blurs it further.
+ * <p>
+ * Decoded images are kept in a least recently used cache bounded by the memory their pixels take up.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class ArtworkStore implements ArtworkSink {
+    private static final int MAGIC = 0x53504741;    // "SPGA"
+    private static final int VERSION = 1;
+
+    private static final int THUMBNAIL_SIZE = 48;   // Maximum width and height of a thumbnail in pixels
+    private static final int BACKDROP_SIZE = 48;    // Width and height of a backdrop in pixels, before it's scaled up to fill the player
+    private static final int COVER_SIZE = 800;      // Maximum width and height of a cover shown in the player
+    private static final int BLUR_RADIUS = 2;       // Radius of the box blur in backdrop pixels
+    private static final int BLUR_PASSES = 3;       // Three box blurs are close to a gaussian blur
+
+    private final ArtworkFolder folder;
+    private final Path directory;
+    private final long capacity;
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();          // Hash of the cover of each media file that has one, by path
+    private final Map<String, Image> images = new LinkedHashMap<>(16, 0.75f, true); // Decoded images in access order, guarded by this
+    private final Map<String, Long> sizes = new HashMap<>();                         // Bytes taken up by the pixels of each cached image, guarded by this
+    private final ExecutorService loader;
+    private long size; // Bytes taken up by the pixels of the cached images
+
+    private int hits;
+    private int misses;
+
+    /**
+     * Sole constructor.
+     *
+     * @param directory folder the covers are stored in, created if it doesn't exist
+     * @param capacity  maximum bytes the pixels of the cached images may take up
+     */
+    public ArtworkStore(Path directory, long capacity) {
+        this.folder = new ArtworkFolder(directory);
+        this.directory = directory;
+        this.capacity = capacity;
+
+        loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-artwork");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Stores a cover unless an identical one has already been stored, and renders its thumbnail and backdrop unless they have been rendered.
+     *
+     * @param data encoded image, e.g. the content of an {@code APIC} frame
+     * @return hash identifying the cover, or {@code null} if it couldn't be stored
+     */
+    @Override
+    public String store(byte[] data) {
+        String hash = folder.store(data);
+
+        if (hash == null || Files.exists(directory.resolve(hash + ".thumbnail"))) {
+            return hash;
+        }
+
+        try {
+            Image image = decode(data, Math.max(THUMBNAIL_SIZE, BACKDROP_SIZE));
+
+            writePixels(directory.resolve(hash + ".thumbnail"), downscale(image, THUMBNAIL_SIZE));
+            writePixels(directory.resolve(hash + ".backdrop"), blur(image));
+        } catch (Exception e) {
+            // Rendered the first time it's shown instead, e.g. if the cover can't be decoded without the JavaFX toolkit
+        }
+
+        return hash;
+    }
+
+    @Override
+    public void assign(String path, String hash) {
+        if (hash == null || hash.isEmpty()) {
+            hashes.remove(path);
+        } else {
+            hashes.put(path, hash);
+        }
+    }
+
+    @Override
+    public void unassignFolder(String folder) {
+        String prefix = folder + File.separator;
+
+        hashes.keySet().removeIf(path -> path.startsWith(prefix));
+    }
+
+    /**
+     * @param path absolute path of a media file
+     * @return hash of the media file's cover, or {@code null} if it has none or hasn't been scanned yet
+     */
+    public String getHash(String path) {
+        return hashes.get(path);
+    }
+
+    /**
+     * Returns a cover downscaled to the size it's shown at. The cover is decoded in the background, so the image may still be loading when it's returned.
+     *
+     * @param hash hash of the cover
+     * @return the cover, or {@code null} if it isn't stored
+     */
+    public Image getCover(String hash) {
+        Image cover = getCached("cover:" + hash);
+
+        if (cover == null) {
+            Path file = directory.resolve(hash);
+
+            if (!Files.exists(file)) {
+                return null;
+            }
+
+            cover = new Image(file.toUri().toString(), COVER_SIZE, COVER_SIZE, true, true, true);
+            putCached("cover:" + hash, cover, (long) COVER_SIZE * COVER_SIZE * 4); // Reserved for the largest it can be, since its size isn't known until it has been loaded
+        }
+
+        return cover;
+    }
+
+    /**
+     * @param hash hash of the cover
+     * @return blurred backdrop of the cover, or {@code null} if it isn't stored
+     */
+    public Image getBackdrop(String hash) {
+        return getRendered(hash, "backdrop");
+    }
+
+    /**
+     * @param hash hash of the cover
+     * @return thumbnail of the cover if it has been loaded, otherwise {@code null}
+     * @see #loadThumbnail(String, Consumer)
+     */
+    public Image getCachedThumbnail(String hash) {
+        return getCached("thumbnail:" + hash);
+    }
+
+    /**
+     * Loads the thumbnail of a cover in the background.
+     *
+     * @param hash     hash of the cover
+     * @param onLoaded receives the thumbnail, or {@code null} if it isn't stored, called on a background thread
+     */
+    public void loadThumbnail(String hash, Consumer<Image> onLoaded) {
+        loader.execute(() -> onLoaded.accept(getRendered(hash, "thumbnail")));
+    }
+
+    /**
+     * Reads a thumbnail or backdrop from the cache or the artwork folder, rendering it from the cover if it hasn't been rendered yet.
+     */
+    private Image getRendered(String hash, String kind) {
+        String key = kind + ":" + hash;
+        Image image = getCached(key);
+
+        if (image != null) {
+            return image;
+        }
+
+        Path file = directory.resolve(hash + "." + kind);
+
+        try {
+            image = readPixels(file);
+        } catch (NoSuchFileException e) {
+            try {
+                Image cover = decode(Files.readAllBytes(directory.resolve(hash)), Math.max(THUMBNAIL_SIZE, BACKDROP_SIZE));
+
+                image = kind.equals("backdrop") ? blur(cover) : downscale(cover, THUMBNAIL_SIZE);
+                writePixels(file, image);
+            } catch (Exception ex) {
+                System.err.println("Couldn't render album cover " + hash + ": " + ex.getMessage());
+
+                return null;
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+
+            return null;
+        }
+
+        putCached(key, image, (long) image.getWidth() * (long) image.getHeight() * 4);
+
+        return image;
+    }
+
+    /* Least recently used cache */
+
+    private synchronized Image getCached(String key) {
+        Image image = images.get(key);
+
+        if (image == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return image;
+    }
+
+    private synchronized void putCached(String key, Image image, long bytes) {
+        images.put(key, image);
+        size += bytes - sizes.getOrDefault(key, 0L);
+        sizes.put(key, bytes);
+
+        for (Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator(); size > capacity && it.hasNext(); ) {
+            Map.Entry<String, Image> eldest = it.next();
+
+            if (eldest.getValue() != image) {
+                size -= sizes.remove(eldest.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return number of images in the cache
+     */
+    public synchronized int getCachedCount() {
+        return images.size();
+    }
+
+    /**
+     * @return bytes taken up by the pixels of the cached images
+     */
+    public synchronized long getCachedSize() {
+        return size;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /* Rendering */
+
+    /**
+     * Blurs an image into a small backdrop. Used for covers that aren't stored, e.g. those only found in the metadata of the playing media file.
+     *
+     * @param image image to be blurred
+     * @return small blurred copy of the image
+     */
+    public static Image blur(Image image) {
+        int[] pixels = sample(image, BACKDROP_SIZE, BACKDROP_SIZE);
+        int[] buffer = new int[pixels.length];
+
+        for (int i = 0; i < BLUR_PASSES; i++) {
+            boxBlur(pixels, buffer, BACKDROP_SIZE, BACKDROP_SIZE, 1, BACKDROP_SIZE); // Horizontally, from pixels into buffer
+            boxBlur(buffer, pixels, BACKDROP_SIZE, BACKDROP_SIZE, BACKDROP_SIZE, 1); // Vertically, back into pixels
+        }
+
+        return toImage(pixels, BACKDROP_SIZE, BACKDROP_SIZE);
+    }
+
+    /**
+     * Averages every pixel with its neighbours within {@link #BLUR_RADIUS} along one axis, using a running sum so the cost doesn't depend on the radius. Pixels beyond the edges repeat the edge.
+     *
+     * @param step   distance in the array between two neighbouring pixels along the axis
+     * @param stride distance in the array between the first pixels of two lines
+     */
+    private static void boxBlur(int[] source, int[] target, int width, int height, int step, int stride) {
+        int length = step == 1 ? width : height;
+        int lines = step == 1 ? height : width;
+        int window = BLUR_RADIUS * 2 + 1;
+
+        for (int line = 0; line < lines; line++) {
+            int start = line * stride;
+            int a = 0, r = 0, g = 0, b = 0;
+
+            for (int i = -BLUR_RADIUS; i <= BLUR_RADIUS; i++) {
+                int pixel = source[start + Math.min(Math.max(i, 0), length - 1) * step];
+
+                a += pixel >>> 24;
+                r += pixel >> 16 & 0xff;
+                g += pixel >> 8 & 0xff;
+                b += pixel & 0xff;
+            }
+
+            for (int i = 0; i < length; i++) {
+                target[start + i * step] = a / window << 24 | r / window << 16 | g / window << 8 | b / window;
+
+                int added = source[start + Math.min(i + BLUR_RADIUS + 1, length - 1) * step];
+                int removed = source[start + Math.max(i - BLUR_RADIUS, 0) * step];
+
+                a += (added >>> 24) - (removed >>> 24);
+                r += (added >> 16 & 0xff) - (removed >> 16 & 0xff);
+                g += (added >> 8 & 0xff) - (removed >> 8 & 0xff);
+                b += (added & 0xff) - (removed & 0xff);
+            }
+        }
+    }
+
+    private static Image downscale(Image image, int size) {
+        double scale = Math.min(1, size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        return toImage(sample(image, width, height), width, height);
+    }
+
+    /**
+     * Resizes an image by averaging the pixels each target pixel covers.
+     */
+    private static int[] sample(Image image, int width, int height) {
+        PixelReader reader = image.getPixelReader();
+        int sourceWidth = (int) image.getWidth();
+        int sourceHeight = (int) image.getHeight();
+
+        if (reader == null || sourceWidth == 0 || sourceHeight == 0) {
+            throw new IllegalArgumentException("Image has no pixels");
+        }
+
+        int[] source = new int[sourceWidth * sourceHeight];
+        reader.getPixels(0, 0, sourceWidth, sourceHeight, PixelFormat.getIntArgbInstance(), source, 0, sourceWidth);
+
+        int[] pixels = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            int top = y * sourceHeight / height;
+            int bottom = Math.max(top + 1, (y + 1) * sourceHeight / height);
+
+            for (int x = 0; x < width; x++) {
+                int left = x * sourceWidth / width;
+                int right = Math.max(left + 1, (x + 1) * sourceWidth / width);
+                long a = 0, r = 0, g = 0, b = 0;
+
+                for (int sy = top; sy < bottom; sy++) {
+                    for (int sx = left; sx < right; sx++) {
+                        int pixel = source[sy * sourceWidth + sx];
+
+                        a += pixel >>> 24;
+                        r += pixel >> 16 & 0xff;
+                        g += pixel >> 8 & 0xff;
+                        b += pixel & 0xff;
+                    }
+                }
+
+                long count = (long) (bottom - top) * (right - left);
+
+                pixels[y * width + x] = (int) (a / count << 24 | r / count << 16 | g / count << 8 | b / count);
+            }
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Decodes an image, downscaling it while it's decoded so a large cover never has to be held at full size.
+     */
+    private static Image decode(byte[] data, int size) {
+        Image image = new Image(new ByteArrayInputStream(data), size * 2, size * 2, true, true);
+
+        if (image.isError()) {
+            throw new IllegalArgumentException(image.getException() != null ? image.getException().getMessage() : "Unsupported image");
+        }
+
+        return image;
+    }
+
+    private static Image toImage(int[] pixels, int width, int height) {
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        return image;
+    }
+
+    /* Files */
+
+    private static Image readPixels(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new NoSuchFileException(file.toString()); // Rendered again
+            }
+
+            int width = in.readInt();
+            int height = in.readInt();
+
+            if (width <= 0 || height <= 0 || width > COVER_SIZE || height > COVER_SIZE) {
+                throw new NoSuchFileException(file.toString());
+            }
+
+            int[] pixels = new int[width * height];
+
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = in.readInt();
+            }
+
+            return toImage(pixels, width, height);
+        }
+    }
+
+    private void writePixels(Path file, Image image) throws IOException {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        folder.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+
+            for (int pixel : pixels) {
+                out.writeInt(pixel);
+            }
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package spaget;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects parameterized statements and executes them as {@code JDBC} batches in a single transaction.
+ * <p>
+ * Statements are grouped by their sql string and sent in chunks of at most {@code chunkSize} rows. If the transaction fails for a reason that may pass, e.g. it was chosen as a deadlock victim
+ * or the connection was lost, it's rolled back and executed again from the start, since the database doesn't keep such a transaction usable. Any other failure, e.g. a violated constraint,
+ * fails the same way every time, so the transaction is rolled back at once.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class Batch {
+    private static final int MAX_ATTEMPTS = 3;      // Number of times a transaction that fails for a transient reason is tried
+    private static final long RETRY_DELAY = 100;    // Milliseconds waited before the second attempt, doubled for every attempt after it
+
+    private final int chunkSize;
+    private final Map<String, List<Object[]>> statements = new LinkedHashMap<>(); // Statements are executed in the order their sql was first added
+    private int size;
+
+    /**
+     * Sole constructor.
+     *
+     * @param chunkSize maximum number of rows sent in one round trip
+     */
+    public Batch(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Adds a row of parameters for the {@code sql}.
+     *
+     * @param sql        parameterized sql string
+     * @param parameters values bound to the {@code ?} placeholders, in order
+     */
+    public void add(String sql, Object... parameters) {
+        statements.computeIfAbsent(sql, key -> new ArrayList<>()).add(parameters);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Executes every added row in one transaction and clears the batch if it was committed.
+     *
+     * @return {@code true} if the transaction was committed
+     */
+    public boolean execute() {
+        if (isEmpty()) {
+            return true;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                executeTransaction();
+
+                break;
+            } catch (SQLException e) {
+                if (!isTransient(e) || attempt == MAX_ATTEMPTS) {
+                    System.err.println(e.getMessage());
+
+                    return false;
+                }
+
+                System.err.println("Batch failed (attempt " + attempt + " of " + MAX_ATTEMPTS + "), retrying: " + e.getMessage());
+
+                try {
+                    Thread.sleep(RETRY_DELAY << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+
+                    return false;
+                }
+            }
+        }
+
+        statements.clear();
+        size = 0;
+
+        return true;
+    }
+
+    /**
+     * Sends every chunk and commits them. A transaction that isn't committed is rolled back when the connection is released.
+     *
+     * @throws SQLException if the transaction failed
+     */
+    private void executeTransaction() throws SQLException {
+        try (PooledConnection con = DB.getConnection()) {
+            try {
+                con.getConnection().setAutoCommit(false);
+
+                for (Map.Entry<String, List<Object[]>> entry : statements.entrySet()) {
+                    List<Object[]> rows = entry.getValue();
+
+                    for (int from = 0; from < rows.size(); from += chunkSize) {
+                        executeChunk(con, entry.getKey(), rows.subList(from, Math.min(from + chunkSize, rows.size())));
+                    }
+                }
+
+                con.getConnection().commit();
+                con.getConnection().setAutoCommit(true);
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    con.markBroken(); // A new connection is used for the next attempt
+                }
+
+                throw e;
+            }
+        }
+    }
+
+    private static void executeChunk(PooledConnection con, String sql, List<Object[]> rows) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+
+        try {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    ps.setObject(i + 1, row[i]);
+                }
+
+                ps.addBatch();
+            }
+
+            long start = System.nanoTime();
+            ps.executeBatch();
+
+            Metrics.database().recordUpdate(start);
+        } catch (SQLException e) {
+            try {
+                ps.clearBatch(); // The statement is cached, so no rows are left for its next use
+            } catch (SQLException clearFailed) {
+                con.markBroken();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * @return {@code true} if the transaction may succeed when it's executed again: a serialization failure or deadlock ({@code 40001}), or a connection error ({@code 08xxx})
+     */
+    private static boolean isTransient(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if ("40001".equals(cause.getSQLState()) || isConnectionError(cause) || cause instanceof SQLTransientException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isConnectionError(SQLException e) {
+        return e instanceof SQLRecoverableException || e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+}
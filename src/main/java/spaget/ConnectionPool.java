@@ -0,0 +1,278 @@
+package spaget;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of {@link PooledConnection}s to the database.
+ * <p>
+ * A thread that borrows a connection keeps it until it has released it as many times as it borrowed it, so nested borrows on the same thread share one connection. Idle connections are validated
+ * before they are handed out again and evicted once they have been idle for longer than the idle timeout.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT = 2;        // Seconds a validation query may take before the connection is considered broken
+    private static final long VALIDATION_INTERVAL = 5000;   // Connections that were used more recently than this (in milliseconds) are not validated again
+
+    private final String url;
+    private final String userName;
+    private final String password;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final long borrowTimeout;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ThreadLocal<PooledConnection> owned = new ThreadLocal<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /* Counters */
+
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong saturations = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    /**
+     * Sole constructor.
+     *
+     * @param url                {@code JDBC} url of the database
+     * @param userName           user name used to log in
+     * @param password           password used to log in
+     * @param maxSize            maximum number of open connections
+     * @param idleTimeout        milliseconds a connection may stay idle before it's closed
+     * @param borrowTimeout      milliseconds a thread waits for a free connection before giving up
+     * @param statementCacheSize maximum number of prepared statements cached per connection
+     */
+    public ConnectionPool(String url, String userName, String password, int maxSize, long idleTimeout, long borrowTimeout, int statementCacheSize) {
+        this.url = url;
+        this.userName = userName;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+        this.statementCacheSize = statementCacheSize;
+
+        permits = new Semaphore(maxSize, true);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-pool-evictor");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        long period = Math.max(1000, idleTimeout / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection for the current thread.
+     * <p>
+     * If the thread already holds a connection the same one is returned. Otherwise an idle connection is validated and reused, or a new one is opened if none are idle. The connection must be
+     * given back with {@link PooledConnection#close()}.
+     *
+     * @return connection owned by the current thread
+     * @throws SQLException if no connection could be obtained within the borrow timeout
+     */
+    public PooledConnection borrow() throws SQLException {
+        PooledConnection connection = owned.get();
+
+        if (connection != null) {
+            connection.acquire();
+
+            return connection;
+        }
+
+        borrows.incrementAndGet();
+
+        long start = System.nanoTime();
+
+        try {
+            if (!permits.tryAcquire()) {
+                saturations.incrementAndGet(); // Every connection is in use, so the thread has to wait
+
+                if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new SQLException("Timed out waiting for a database connection after " + borrowTimeout + " ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            long waited = System.nanoTime() - start;
+
+            borrowWaitNanos.addAndGet(waited);
+            maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        try {
+            connection = takeIdle();
+
+            if (connection == null) {
+                connection = new PooledConnection(this, DriverManager.getConnection(url, userName, password), statementCacheSize);
+                connectionsOpened.incrementAndGet();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+
+            throw e;
+        }
+
+        connection.acquire();
+        owned.set(connection);
+
+        peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+        return connection;
+    }
+
+    /**
+     * Called by {@link PooledConnection#close()} once the owning thread has released the connection as many times as it borrowed it.
+     *
+     * @param connection connection to hand back to the pool
+     */
+    void release(PooledConnection connection) {
+        owned.remove();
+        active.decrementAndGet();
+
+        if (connection.isBroken() || closed) {
+            connection.closePhysical();
+        } else {
+            synchronized (idle) {
+                idle.push(connection);
+            }
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Takes the most recently used idle connection that is still valid, closing any that aren't.
+     *
+     * @return valid idle connection, or {@code null} if there is none
+     */
+    private PooledConnection takeIdle() {
+        while (true) {
+            PooledConnection connection;
+
+            synchronized (idle) {
+                connection = idle.poll();
+            }
+
+            if (connection == null) {
+                return null;
+            }
+
+            if (System.currentTimeMillis() - connection.getLastUsed() < VALIDATION_INTERVAL || connection.isValid(VALIDATION_TIMEOUT)) {
+                return connection;
+            }
+
+            connection.closePhysical();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for longer than the idle timeout.
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        synchronized (idle) {
+            Iterator<PooledConnection> iterator = idle.descendingIterator(); // The least recently used connections are at the tail
+
+            while (iterator.hasNext()) {
+                PooledConnection connection = iterator.next();
+
+                if (now - connection.getLastUsed() > idleTimeout) {
+                    iterator.remove();
+                    connection.closePhysical();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the eviction thread. Connections that are still borrowed are closed when they are released.
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        synchronized (idle) {
+            for (PooledConnection connection : idle) {
+                connection.closePhysical();
+            }
+
+            idle.clear();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public int getPeakActive() {
+        return peakActive.get();
+    }
+
+    public int getIdle() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public long getBorrows() {
+        return borrows.get();
+    }
+
+    /**
+     * @return number of borrows that found every connection in use and had to wait
+     */
+    public long getSaturations() {
+        return saturations.get();
+    }
+
+    public long getBorrowWaitNanos() {
+        return borrowWaitNanos.get();
+    }
+
+    public long getMaxBorrowWaitNanos() {
+        return maxBorrowWaitNanos.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPool[active=" + getActive() + "/" + maxSize + ", idle=" + getIdle() + ", opened=" + getConnectionsOpened() + ", borrows=" + getBorrows() + ", saturations=" +
+                getSaturations() + ", waitMs=" + TimeUnit.NANOSECONDS.toMillis(getBorrowWaitNanos()) + "]";
+    }
+}
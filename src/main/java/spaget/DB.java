@@ -4,30 +4,27 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.nio.file.Paths;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Properties;
 
 /**
  * @author tha
  */
 public class DB {
-    private static Connection con;
-    private static PreparedStatement ps;
-    private static ResultSet rs;
     private static String port;
     private static String databaseName;
     private static String userName;
     private static String password;
+    private static ConnectionPool pool;
+    private static int batchSize = 500;
+    private static int fetchSize = 1000;
 
     public static final String NOMOREDATA = "|ND|";
-    private static int numberOfColumns;
-    private static int currentColumnNumber = 1;
 
     /**
-     * STATES
+     * Select state of the current thread, so every thread can have its own pending select
      */
-    private static boolean moreData = false;  // from Resultset
-    private static boolean pendingData = false; // from select statement
-    private static boolean terminated = false;
+    private static final ThreadLocal<Cursor> cursor = ThreadLocal.withInitial(Cursor::new);
 
     private DB() {
     }
@@ -47,6 +44,16 @@ public class DB {
             userName = props.getProperty("userName", "sa");
             password = props.getProperty("password");
             Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+
+            pool = new ConnectionPool("jdbc:sqlserver://localhost:" + port + ";databaseName=" + databaseName, userName, password,
+                    Integer.parseInt(props.getProperty("pool.maxSize", "8")),
+                    Long.parseLong(props.getProperty("pool.idleTimeout", "60000")),
+                    Long.parseLong(props.getProperty("pool.borrowTimeout", "30000")),
+                    Integer.parseInt(props.getProperty("pool.statementCacheSize", "32")));
+
+            batchSize = Integer.parseInt(props.getProperty("batch.chunkSize", "500"));
+            fetchSize = Integer.parseInt(props.getProperty("query.fetchSize", "1000"));
+
             System.out.println("Database Ready");
 
         } catch (Exception e) {
@@ -54,45 +61,144 @@ public class DB {
         }
     }
 
-    private static void connect() {
-        try {
-            con = DriverManager.getConnection("jdbc:sqlserver://localhost:" + port + ";databaseName=" + databaseName, userName, password);
-        } catch (SQLException e) {
-            System.err.println(e.getMessage());
+    /**
+     * Borrows a pooled connection for the current thread. Closing the returned connection gives it back to the pool.
+     *
+     * @return connection owned by the current thread
+     * @throws SQLException if no connection could be obtained
+     */
+    public static PooledConnection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("The database is not configured, check db.properties");
         }
 
+        return pool.borrow();
     }
 
-    private static void disconnect() {
-        try {
-            con.close();
+    /**
+     * @return the connection pool, e.g. to read its counters
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Replaces the connection pool configured by db.properties, closing the previous one, e.g. so the benchmarks can read from a database in memory.
+     *
+     * @param connectionPool pool to borrow connections from
+     */
+    static void setPool(ConnectionPool connectionPool) {
+        if (pool != null) {
+            pool.close();
+        }
+
+        pool = connectionPool;
+    }
+
+    /**
+     * @return maximum number of rows sent in one round trip by a {@link Batch}
+     */
+    public static int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Executes a select whose rows are mapped by the {@code mapper} while they are read, using the default fetch size.
+     *
+     * @param sql        parameterized sql string
+     * @param mapper     maps each row to an object
+     * @param parameters values bound to the {@code ?} placeholders, in order
+     * @param <T>        type of the mapped rows
+     * @return open {@code Query} which must be closed after use
+     * @throws SQLException if the select couldn't be executed
+     */
+    public static <T> Query<T> query(String sql, RowMapper<T> mapper, Object... parameters) throws SQLException {
+        return new Query<>(sql, fetchSize, mapper, parameters);
+    }
+
+    /**
+     * Executes a select whose rows are mapped by the {@code mapper} while they are read.
+     *
+     * @param sql        parameterized sql string
+     * @param fetchSize  number of rows the driver fetches per round trip
+     * @param mapper     maps each row to an object
+     * @param parameters values bound to the {@code ?} placeholders, in order
+     * @param <T>        type of the mapped rows
+     * @return open {@code Query} which must be closed after use
+     * @throws SQLException if the select couldn't be executed
+     */
+    public static <T> Query<T> query(String sql, int fetchSize, RowMapper<T> mapper, Object... parameters) throws SQLException {
+        return new Query<>(sql, fetchSize, mapper, parameters);
+    }
+
+    /**
+     * Executes a select and maps every row into an {@code ArrayList}.
+     *
+     * @param sql        parameterized sql string
+     * @param mapper     maps each row to an object
+     * @param parameters values bound to the {@code ?} placeholders, in order
+     * @param <T>        type of the mapped rows
+     * @return mapped rows, or an empty list if the select failed
+     */
+    public static <T> ArrayList<T> queryList(String sql, RowMapper<T> mapper, Object... parameters) {
+        try (Query<T> query = query(sql, mapper, parameters)) {
+            return query.toList();
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Executes a parameterized insert, update, or delete.
+     *
+     * @param sql        parameterized sql string
+     * @param parameters values bound to the {@code ?} placeholders, in order
+     * @return number of changed rows, or {@code -1} if the statement failed
+     */
+    public static int update(String sql, Object... parameters) {
+        try (PooledConnection con = getConnection()) {
+            PreparedStatement ps = con.prepareStatement(sql);
+
+            for (int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+
+            long start = System.nanoTime();
+            int rows = ps.executeUpdate();
+
+            Metrics.database().recordUpdate(start);
+
+            return rows;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
         }
+        return -1;
     }
 
     /**
      * @param sql the sql string to be executed in SQLServer
      */
     public static void selectSQL(String sql) {
-        if (terminated) {
+        Cursor c = cursor.get();
+
+        if (c.terminated) {
             System.exit(0);
         }
         try {
-            if (ps != null) {
-                ps.close();
-            }
-            if (rs != null) {
-                rs.close();
-            }
-            connect();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
-            pendingData = true;
-            moreData = rs.next();
-            ResultSetMetaData rsmd = rs.getMetaData();
-            numberOfColumns = rsmd.getColumnCount();
+            c.close();
+            c.con = getConnection();
+
+            long start = System.nanoTime();
+            c.rs = c.con.prepareStatement(sql).executeQuery();
+
+            Metrics.database().recordQuery(start);
+            c.pendingData = true;
+            c.moreData = c.rs.next();
+            ResultSetMetaData rsmd = c.rs.getMetaData();
+            c.numberOfColumns = rsmd.getColumnCount();
         } catch (Exception e) {
+            c.close();
             System.err.println("Error in the sql parameter, please test this in SQLServer first");
             System.err.println(e.getMessage());
         }
@@ -102,103 +208,150 @@ public class DB {
      * @return The next single value (formatted) from previous select
      */
     public static String getDisplayData() {
-        if (terminated) {
+        Cursor c = cursor.get();
+
+        if (c.terminated) {
             System.exit(0);
         }
-        if (!pendingData) {
-            terminated = true;
+        if (!c.pendingData) {
+            c.terminated = true;
             throw new RuntimeException("ERROR! No previous select, communication with the database is lost!");
-        } else if (!moreData) {
-            disconnect();
-            pendingData = false;
+        } else if (!c.moreData) {
+            c.close();
             return NOMOREDATA;
         } else {
-            return getNextValue(true);
+            return c.getNextValue(true);
         }
     }
 
     public static int getNumberOfColumns() {
-        return numberOfColumns;
+        return cursor.get().numberOfColumns;
     }
 
     /**
      * @return The next single value (without formatting) from previous select
      */
     public static String getData() {
-        if (terminated) {
+        Cursor c = cursor.get();
+
+        if (c.terminated) {
             System.exit(0);
         }
-        if (!pendingData) {
-            terminated = true;
+        if (!c.pendingData) {
+            c.terminated = true;
             throw new RuntimeException("ERROR! No previous select, communication with the database is lost!");
-        } else if (!moreData) {
-            disconnect();
-            pendingData = false;
+        } else if (!c.moreData) {
+            c.close();
             return NOMOREDATA;
         } else {
-            return getNextValue(false).trim();
+            return c.getNextValue(false).trim();
         }
     }
 
-    private static String getNextValue(boolean view) {
-        StringBuilder value = new StringBuilder();
-        try {
-            value.append(rs.getString(currentColumnNumber));
-            if (currentColumnNumber >= numberOfColumns) {
-                currentColumnNumber = 1;
-                if (view) {
-                    value.append("\n");
-                }
-                moreData = rs.next();
-            } else {
-                if (view) {
-                    value.append(" ");
-                }
-                currentColumnNumber++;
-            }
-        } catch (SQLException e) {
-            System.err.println(e.getMessage());
-        }
-        return value.toString();
-    }
-
+    /**
+     * @deprecated changes to the library are queued with {@link MediaWriteQueue#submit(LibraryDelta)}, which writes them in batches on a single thread
+     */
+    @Deprecated
     public static boolean insertSQL(String sql) {
         return executeUpdate(sql);
     }
 
+    /**
+     * @deprecated changes to the library are queued with {@link MediaWriteQueue#submit(LibraryDelta)}, which writes them in batches on a single thread
+     */
+    @Deprecated
     public static boolean updateSQL(String sql) {
         return executeUpdate(sql);
     }
 
+    /**
+     * @deprecated changes to the library are queued with {@link MediaWriteQueue#submit(LibraryDelta)}, which writes them in batches on a single thread
+     */
+    @Deprecated
     public static boolean deleteSQL(String sql) {
         return executeUpdate(sql);
     }
 
     private static boolean executeUpdate(String sql) {
-        if (terminated) {
+        Cursor c = cursor.get();
+
+        if (c.terminated) {
             System.exit(0);
         }
-        if (pendingData) {
-            terminated = true;
+        if (c.pendingData) {
+            c.terminated = true;
             throw new RuntimeException("ERROR! There were pending data from previous select, communication with the database is lost! ");
         }
-        try {
-            if (ps != null) {
-                ps.close();
-            }
-            connect();
-            ps = con.prepareStatement(sql);
-            int rows = ps.executeUpdate();
-            ps.close();
+        try (PooledConnection con = getConnection()) {
+            long start = System.nanoTime();
+            int rows = con.prepareStatement(sql).executeUpdate();
+            Metrics.database().recordUpdate(start);
             if (rows > 0) {
                 return true;
             }
         } catch (Exception e) {
             System.err.println(e.getMessage());
-        } finally {
-            disconnect();
         }
         return false;
     }
-}
 
+    /**
+     * Result set and position of a select that is being read with {@link #getData()} or {@link #getDisplayData()}.
+     */
+    private static class Cursor {
+        private PooledConnection con;
+        private ResultSet rs;
+        private int numberOfColumns;
+        private int currentColumnNumber = 1;
+
+        /**
+         * STATES
+         */
+        private boolean moreData = false;  // from Resultset
+        private boolean pendingData = false; // from select statement
+        private boolean terminated = false;
+
+        private String getNextValue(boolean view) {
+            StringBuilder value = new StringBuilder();
+            try {
+                value.append(rs.getString(currentColumnNumber));
+                if (currentColumnNumber >= numberOfColumns) {
+                    currentColumnNumber = 1;
+                    if (view) {
+                        value.append("\n");
+                    }
+                    moreData = rs.next();
+                } else {
+                    if (view) {
+                        value.append(" ");
+                    }
+                    currentColumnNumber++;
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return value.toString();
+        }
+
+        /**
+         * Closes the result set and gives the connection back to the pool.
+         */
+        private void close() {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            if (con != null) {
+                con.close();
+            }
+            rs = null;
+            con = null;
+            pendingData = false;
+            moreData = false;
+            currentColumnNumber = 1;
+        }
+    }
+}
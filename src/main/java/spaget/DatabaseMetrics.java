@@ -0,0 +1,143 @@
+package spaget;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the statements executed by {@link DB}, {@link Query}, and {@link Batch}, and the rows they map.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Metrics#database()
+ * @since 18.10.2026
+ */
+public class DatabaseMetrics implements DatabaseMetricsMXBean {
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rowsMapped = new LongAdder();
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+
+    private long lastQueries;   // Number of selects at the last tick
+    private long lastUpdates;   // Number of updates at the last tick
+    private volatile double queriesPerSecond;
+    private volatile double updatesPerSecond;
+
+    /**
+     * @param start value of {@code System.nanoTime()} before the select was executed
+     */
+    void recordQuery(long start) {
+        queries.increment();
+        queryLatency.recordSince(start);
+    }
+
+    /**
+     * @param start value of {@code System.nanoTime()} before the insert, update, or delete was executed
+     */
+    void recordUpdate(long start) {
+        updates.increment();
+        updateLatency.recordSince(start);
+    }
+
+    void recordRowMapped() {
+        rowsMapped.increment();
+    }
+
+    /**
+     * Calculates the statements per second since the last tick.
+     *
+     * @param seconds seconds since the last tick
+     */
+    synchronized void tick(double seconds) {
+        long currentQueries = queries.sum();
+        long currentUpdates = updates.sum();
+
+        queriesPerSecond = Math.max(currentQueries - lastQueries, 0) / seconds;
+        updatesPerSecond = Math.max(currentUpdates - lastUpdates, 0) / seconds;
+
+        lastQueries = currentQueries;
+        lastUpdates = currentUpdates;
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return DB.getPool() != null ? DB.getPool().getConnectionsOpened() : 0;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return DB.getPool() != null ? DB.getPool().getActive() : 0;
+    }
+
+    @Override
+    public int getPeakActiveConnections() {
+        return DB.getPool() != null ? DB.getPool().getPeakActive() : 0;
+    }
+
+    @Override
+    public long getSaturations() {
+        return DB.getPool() != null ? DB.getPool().getSaturations() : 0;
+    }
+
+    @Override
+    public long getBorrowWaitNanos() {
+        return DB.getPool() != null ? DB.getPool().getBorrowWaitNanos() : 0;
+    }
+
+    @Override
+    public long getMaxBorrowWaitNanos() {
+        return DB.getPool() != null ? DB.getPool().getMaxBorrowWaitNanos() : 0;
+    }
+
+    @Override
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    @Override
+    public long getUpdates() {
+        return updates.sum();
+    }
+
+    @Override
+    public double getQueriesPerSecond() {
+        return queriesPerSecond;
+    }
+
+    @Override
+    public double getUpdatesPerSecond() {
+        return updatesPerSecond;
+    }
+
+    @Override
+    public long getRowsMapped() {
+        return rowsMapped.sum();
+    }
+
+    @Override
+    public LatencyHistogram getQueryLatency() {
+        return queryLatency;
+    }
+
+    @Override
+    public LatencyHistogram getUpdateLatency() {
+        return updateLatency;
+    }
+
+    @Override
+    public synchronized void reset() {
+        queries.reset();
+        updates.reset();
+        rowsMapped.reset();
+        queryLatency.reset();
+        updateLatency.reset();
+
+        lastQueries = 0;
+        lastUpdates = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Database[opened=" + getConnectionsOpened() + ", active=" + getActiveConnections() + ", saturations=" + getSaturations() + ", queries=" + getQueries() + ", updates=" +
+                getUpdates() + ", rows=" + getRowsMapped() + ", query latency (" + queryLatency + "), update latency (" + updateLatency + ")]";
+    }
+}
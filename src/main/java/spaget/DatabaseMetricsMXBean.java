@@ -0,0 +1,82 @@
+package spaget;
+
+/**
+ * Counters and latencies of the database, readable through {@code JMX} as {@code spaget:type=Database}.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see DatabaseMetrics
+ * @since 18.10.2026
+ */
+public interface DatabaseMetricsMXBean {
+
+    /**
+     * @return number of connections opened by the connection pool
+     */
+    long getConnectionsOpened();
+
+    /**
+     * @return number of connections that are borrowed from the connection pool
+     */
+    int getActiveConnections();
+
+    /**
+     * @return highest number of connections that were borrowed from the connection pool at the same time
+     */
+    int getPeakActiveConnections();
+
+    /**
+     * @return number of borrows that found every connection of the pool in use and had to wait
+     */
+    long getSaturations();
+
+    /**
+     * @return nanoseconds spent waiting for a connection by every borrow together
+     */
+    long getBorrowWaitNanos();
+
+    /**
+     * @return longest time a single borrow waited for a connection, in nanoseconds
+     */
+    long getMaxBorrowWaitNanos();
+
+    /**
+     * @return number of selects executed
+     */
+    long getQueries();
+
+    /**
+     * @return number of inserts, updates, and deletes executed, counting every chunk of a batch once
+     */
+    long getUpdates();
+
+    /**
+     * @return selects executed during the last second
+     */
+    double getQueriesPerSecond();
+
+    /**
+     * @return inserts, updates, and deletes executed during the last second
+     */
+    double getUpdatesPerSecond();
+
+    /**
+     * @return number of rows mapped to objects by a {@link RowMapper}
+     */
+    long getRowsMapped();
+
+    /**
+     * @return time it took to execute the selects, until their first rows could be read
+     */
+    LatencyHistogram getQueryLatency();
+
+    /**
+     * @return time it took to execute the inserts, updates, and deletes
+     */
+    LatencyHistogram getUpdateLatency();
+
+    /**
+     * Sets every counter and latency to zero.
+     */
+    void reset();
+}
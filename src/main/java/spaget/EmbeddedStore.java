@@ -0,0 +1,583 @@
+package spaget;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Repositories kept in memory and persisted to local files, so the application can run without a database server.
+ * <p>
+ * Every transaction is appended to a journal file and forced to disk before it's applied in memory. Transactions are framed with their length and a {@code CRC-32} checksum, so a transaction
+ * that was only partly written when the application stopped is ignored when the journal is replayed. The journal is folded into the data file when it has grown large and when the store is
+ * closed. Both files start with a magic number and a format version.
+ * <p>
+ * The store follows the rules of the database: a playlist name is unique, a media file is only in a playlist once, only stored media files can be added to a playlist, and deleting a playlist
+ * deletes its entries.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories
+ * @since 18.10.2026
+ */
+public class EmbeddedStore implements MediaRepository, PlaylistRepository, PlaylistEntryRepository, AutoCloseable {
+    private static final int MAGIC = 0x53505354;           // "SPST"
+    private static final int VERSION = 1;
+    private static final int COMPACT_THRESHOLD = 10_000;   // Number of journaled transactions before the journal is folded into the data file
+
+    /* Operations of a transaction */
+
+    private static final byte PUT_MEDIA = 1;
+    private static final byte DELETE_MEDIA = 2;
+    private static final byte CREATE_PLAYLIST = 3;
+    private static final byte RENAME_PLAYLIST = 4;
+    private static final byte DELETE_PLAYLIST = 5;
+    private static final byte ADD_ENTRY = 6;
+    private static final byte REMOVE_ENTRY = 7;
+
+    private final Path file;
+    private final Path journal;
+    private final Map<String, Media> media = new LinkedHashMap<>();
+    private final Map<String, Set<String>> playlists = new LinkedHashMap<>(); // Paths of the media files of each playlist, in the order they were added
+    private final Map<MediaSort, Media[]> sorted = new EnumMap<>(MediaSort.class); // Media files in the order of each column, built when a page is read and dropped when media files change
+    private FileChannel channel;                                              // Journal, or null if the store couldn't be opened
+    private int journaled;
+
+    /**
+     * Reads the data file and replays the journal. If the files can't be read or written, an error is printed and every change fails.
+     *
+     * @param file path of the data file, which the journal is stored next to
+     */
+    public EmbeddedStore(Path file) {
+        this.file = file;
+        this.journal = file.resolveSibling(file.getFileName() + ".journal");
+
+        try {
+            replay(file);
+            replay(journal);
+
+            if (!Files.exists(file) || Files.exists(journal) && Files.size(journal) > header().remaining()) {
+                compact(); // Also drops a partly written transaction at the end of the journal
+            } else {
+                openJournal(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Store " + file + " couldn't be opened: " + e.getMessage());
+        }
+    }
+
+    /* Media */
+
+    @Override
+    public synchronized ArrayList<Media> findAll() {
+        return new ArrayList<>(media.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Updates of media files that aren't stored are ignored, like an {@code UPDATE} that matches no rows.
+     */
+    @Override
+    public synchronized boolean apply(LibraryDelta delta) {
+        Transaction transaction = new Transaction();
+
+        for (Media m : delta.getRemoved()) {
+            transaction.add(DELETE_MEDIA, m.getPath());
+        }
+
+        for (Media m : delta.getAdded()) {
+            transaction.add(PUT_MEDIA, m.getPath(), m.getTitle(), m.getArtist(), m.getLength());
+        }
+
+        for (Media m : delta.getUpdated()) {
+            if (media.containsKey(m.getPath())) {
+                transaction.add(PUT_MEDIA, m.getPath(), m.getTitle(), m.getArtist(), m.getLength());
+            }
+        }
+
+        return commit(transaction);
+    }
+
+    @Override
+    public synchronized int count(String filter) {
+        if (filter.isEmpty()) {
+            return media.size();
+        }
+
+        String prefix = filter.toLowerCase(Locale.ROOT);
+        int count = 0;
+
+        for (Media m : media.values()) {
+            if (matches(m, prefix)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The media files are sorted once per column until they change, and the page is found by a binary search for the media file it follows.
+     */
+    @Override
+    public synchronized List<Media> findPage(MediaSort sort, boolean descending, String filter, Media after, int limit) {
+        Media[] order = sort(sort);
+        int start;
+
+        if (after == null) {
+            start = descending ? order.length - 1 : 0;
+        } else {
+            int position = Arrays.binarySearch(order, after, sort.getComparator()); // Position of the media file, or where it would be if it has since been removed
+            int next = position >= 0 ? position + 1 : -position - 1;
+
+            start = descending ? next - (position >= 0 ? 2 : 1) : next;
+        }
+
+        return collect(order, start, descending, filter, 0, limit);
+    }
+
+    @Override
+    public synchronized List<Media> findPage(MediaSort sort, boolean descending, String filter, int offset, int limit) {
+        Media[] order = sort(sort);
+
+        return collect(order, descending ? order.length - 1 : 0, descending, filter, offset, limit);
+    }
+
+    private Media[] sort(MediaSort sort) {
+        return sorted.computeIfAbsent(sort, column -> {
+            Media[] order = media.values().toArray(new Media[0]);
+            Arrays.sort(order, column.getComparator());
+
+            return order;
+        });
+    }
+
+    /**
+     * Collects the media files matching the filter from a position in the sort order, skipping the first {@code offset} of them.
+     */
+    private static List<Media> collect(Media[] order, int start, boolean descending, String filter, int offset, int limit) {
+        List<Media> page = new ArrayList<>(Math.min(limit, order.length));
+        String prefix = filter.toLowerCase(Locale.ROOT);
+        int step = descending ? -1 : 1;
+
+        if (prefix.isEmpty()) {
+            start += offset * step; // Every media file matches, so the skipped ones don't have to be visited
+            offset = 0;
+        }
+
+        for (int i = start; i >= 0 && i < order.length && page.size() < limit; i += step) {
+            if (prefix.isEmpty() || matches(order[i], prefix)) {
+                if (offset > 0) {
+                    offset--;
+                } else {
+                    page.add(order[i]);
+                }
+            }
+        }
+
+        return page;
+    }
+
+    private static boolean matches(Media media, String prefix) {
+        return media.getTitle().toLowerCase(Locale.ROOT).startsWith(prefix) || media.getArtist() != null && media.getArtist().toLowerCase(Locale.ROOT).startsWith(prefix);
+    }
+
+    /* Playlists */
+
+    @Override
+    public synchronized ArrayList<Playlist> findPlaylists(boolean headersOnly) {
+        ArrayList<Playlist> result = new ArrayList<>(playlists.size());
+
+        for (Map.Entry<String, Set<String>> entry : playlists.entrySet()) {
+            Playlist playlist = new Playlist(entry.getKey(), !headersOnly);
+
+            if (!headersOnly) {
+                findEntries(entry.getKey()).forEach(playlist::add);
+            }
+
+            result.add(playlist);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized boolean playlistExists(String name) {
+        return playlists.containsKey(name);
+    }
+
+    @Override
+    public synchronized boolean createPlaylist(String name) {
+        return !playlists.containsKey(name) && commit(new Transaction().add(CREATE_PLAYLIST, name));
+    }
+
+    @Override
+    public synchronized boolean renamePlaylist(String name, String newName) {
+        return playlists.containsKey(name) && !playlists.containsKey(newName) && commit(new Transaction().add(RENAME_PLAYLIST, name, newName));
+    }
+
+    @Override
+    public synchronized boolean deletePlaylist(String name) {
+        return playlists.containsKey(name) && commit(new Transaction().add(DELETE_PLAYLIST, name));
+    }
+
+    /* Playlist entries */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries of media files that are no longer stored are skipped, like rows that don't match a {@code JOIN}.
+     */
+    @Override
+    public synchronized ArrayList<Media> findEntries(String playlist) {
+        ArrayList<Media> result = new ArrayList<>();
+
+        for (String path : playlists.getOrDefault(playlist, Set.of())) {
+            Media m = media.get(path);
+
+            if (m != null) {
+                result.add(m);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Nothing is added if the playlist doesn't exist, or if any of the media files isn't stored or already is in the playlist.
+     */
+    @Override
+    public synchronized boolean addEntries(String playlist, Collection<Media> media) {
+        Set<String> entries = playlists.get(playlist);
+
+        if (entries == null) {
+            return false;
+        }
+
+        Transaction transaction = new Transaction();
+        Set<String> added = new LinkedHashSet<>();
+
+        for (Media m : media) {
+            if (!this.media.containsKey(m.getPath()) || entries.contains(m.getPath()) || !added.add(m.getPath())) {
+                return false;
+            }
+
+            transaction.add(ADD_ENTRY, playlist, m.getPath());
+        }
+
+        return commit(transaction);
+    }
+
+    @Override
+    public synchronized boolean removeEntry(String playlist, Media media) {
+        Set<String> entries = playlists.get(playlist);
+
+        return entries != null && entries.contains(media.getPath()) && commit(new Transaction().add(REMOVE_ENTRY, playlist, media.getPath()));
+    }
+
+    /* Journal */
+
+    /**
+     * Appends a transaction to the journal and applies it in memory once it has been forced to disk.
+     *
+     * @return {@code true} if the transaction was stored
+     */
+    private boolean commit(Transaction transaction) {
+        if (transaction.size == 0) {
+            return true;
+        }
+
+        if (channel == null) {
+            System.err.println("Store " + file + " isn't open, the change was not saved");
+
+            return false;
+        }
+
+        byte[] operations = transaction.bytes.toByteArray();
+        long position = 0;
+
+        try {
+            position = channel.position();
+
+            ByteBuffer frame = frame(operations);
+
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Store " + file + " couldn't save the change: " + e.getMessage());
+
+            try {
+                channel.truncate(position); // Remove the part of the transaction that was written
+            } catch (IOException ignored) {
+                // The checksum makes the replay ignore it
+            }
+
+            return false;
+        }
+
+        applyOperations(operations);
+
+        if (++journaled >= COMPACT_THRESHOLD) {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("Store " + file + " couldn't be compacted: " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private static ByteBuffer frame(byte[] operations) {
+        CRC32 crc = new CRC32();
+        crc.update(operations);
+
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + operations.length + Long.BYTES);
+        frame.putInt(operations.length).put(operations).putLong(crc.getValue()).flip();
+
+        return frame;
+    }
+
+    /**
+     * Applies every complete transaction of a data or journal file.
+     */
+    private void replay(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        long size = Files.size(path);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(path + " isn't a store file of version " + VERSION);
+            }
+
+            while (true) {
+                int length = in.readInt();
+
+                if (length < 0 || length > size) {
+                    System.err.println("Store " + path + " ends with a damaged transaction, which is ignored");
+
+                    break;
+                }
+
+                byte[] operations = new byte[length];
+
+                in.readFully(operations);
+
+                CRC32 crc = new CRC32();
+                crc.update(operations);
+
+                if (in.readLong() != crc.getValue()) {
+                    System.err.println("Store " + path + " ends with a damaged transaction, which is ignored");
+
+                    break;
+                }
+
+                applyOperations(operations);
+            }
+        } catch (EOFException e) {
+            // End of the file, or a transaction that was only partly written
+        }
+    }
+
+    private void applyOperations(byte[] operations) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(operations))) {
+            while (in.available() > 0) {
+                byte operation = in.readByte();
+
+                switch (operation) {
+                    case PUT_MEDIA:
+                        String path = in.readUTF();
+                        media.put(path, new Media(path, in.readUTF(), in.readUTF(), in.readInt()));
+                        sorted.clear();
+                        break;
+                    case DELETE_MEDIA:
+                        media.remove(in.readUTF());
+                        sorted.clear();
+                        break;
+                    case CREATE_PLAYLIST:
+                        playlists.putIfAbsent(in.readUTF(), new LinkedHashSet<>());
+                        break;
+                    case RENAME_PLAYLIST:
+                        Set<String> entries = playlists.remove(in.readUTF());
+                        String newName = in.readUTF();
+
+                        if (entries != null) {
+                            playlists.put(newName, entries);
+                        }
+                        break;
+                    case DELETE_PLAYLIST:
+                        playlists.remove(in.readUTF());
+                        break;
+                    case ADD_ENTRY:
+                        playlists.getOrDefault(in.readUTF(), new LinkedHashSet<>()).add(in.readUTF());
+                        break;
+                    case REMOVE_ENTRY:
+                        playlists.getOrDefault(in.readUTF(), new LinkedHashSet<>()).remove(in.readUTF());
+                        break;
+                    default:
+                        throw new IOException("Unknown operation " + operation);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Only possible if a transaction with a valid checksum is malformed
+        }
+    }
+
+    /**
+     * Writes the whole store to the data file as a single transaction and empties the journal.
+     */
+    private void compact() throws IOException {
+        Transaction transaction = new Transaction();
+
+        for (Media m : media.values()) {
+            transaction.add(PUT_MEDIA, m.getPath(), m.getTitle(), m.getArtist(), m.getLength());
+        }
+
+        for (Map.Entry<String, Set<String>> entry : playlists.entrySet()) {
+            transaction.add(CREATE_PLAYLIST, entry.getKey());
+
+            for (String path : entry.getValue()) {
+                transaction.add(ADD_ENTRY, entry.getKey(), path);
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp"); // Written first so a crash never leaves a half written data file
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = header();
+            ByteBuffer frame = frame(transaction.bytes.toByteArray());
+
+            while (header.hasRemaining() || frame.hasRemaining()) {
+                out.write(new ByteBuffer[]{header, frame});
+            }
+
+            out.force(false);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        openJournal(true);
+    }
+
+    /**
+     * Opens the journal for appending.
+     *
+     * @param truncate whether the journal is emptied, since it has been folded into the data file
+     */
+    private void openJournal(boolean truncate) throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+
+        FileChannel journalChannel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        if (truncate || journalChannel.size() == 0) {
+            journalChannel.truncate(0);
+
+            ByteBuffer header = header();
+
+            while (header.hasRemaining()) {
+                journalChannel.write(header);
+            }
+
+            journalChannel.force(false);
+            journaled = 0;
+        }
+
+        journalChannel.position(journalChannel.size());
+        channel = journalChannel;
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION).flip();
+    }
+
+    /**
+     * Folds the journal into the data file and closes it.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            if (journaled > 0) {
+                compact();
+            }
+
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Store " + file + " couldn't be closed: " + e.getMessage());
+        }
+
+        channel = null;
+    }
+
+    /**
+     * Operations of a transaction, encoded as they are stored.
+     */
+    private static class Transaction {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int size;
+
+        /**
+         * @param operation operation to be added
+         * @param values    {@code String} and {@code Integer} arguments of the operation, in order
+         * @return this transaction
+         */
+        private Transaction add(byte operation, Object... values) {
+            try {
+                out.writeByte(operation);
+
+                for (Object value : values) {
+                    if (value instanceof Integer) {
+                        out.writeInt((Integer) value);
+                    } else {
+                        out.writeUTF(value == null ? "" : value.toString());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Can't happen when writing to memory
+            }
+
+            size++;
+
+            return this;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package spaget;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.scene.media.MediaException;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plays a queue of media files one after another without a gap between them.
+ * <p>
+ * While a media file is playing, the next media file of the queue is opened and buffered by a second {@code MediaPlayer}, so it can start the moment the current one ends instead of only then
+ * being opened. With a crossfade the next media file starts that many milliseconds before the current one ends, and the volume moves from one to the other. The time from the end of a media file
+ * until the next one is playing is measured for every transition, see {@link #getLastGap()}.
+ * <p>
+ * Every media file is played in its own {@link PlaybackSession}, which is closed as soon as the media file is no longer heard. Media files that can't be opened, e.g. because they have been
+ * deleted or their format isn't supported, are skipped.
+ * <p>
+ * Every method must be called on the {@code JavaFX} application thread.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class GaplessPlayer {
+    private final long crossfade;
+    private final List<String> queue = new ArrayList<>(); // Absolute paths of the media files to be played
+    private int index = -1;                               // Position of the current media file in the queue
+    private int nextIndex;                                // Position of the next media file, or of the first one after the current media file that hasn't been tried yet
+
+    private PlaybackSession current;
+    private PlaybackSession next;       // Next media file of the queue, opened ahead of time
+    private PlaybackSession fading;     // Previous media file while it's faded out
+    private Timeline fade;
+
+    private double volume = 1.0;
+    private long endedAt;               // Time the current media file ended, while the next one hasn't started playing yet
+    private long playedAt;              // Time the queue was played, while its first media file isn't ready yet
+    private long lastGap = -1;
+    private Consumer<PlaybackSession> onChanged = session -> {};
+
+    /**
+     * Sole constructor.
+     *
+     * @param crossfade milliseconds the end of a media file overlaps with the start of the next one, or {@code 0} to play them back to back
+     */
+    public GaplessPlayer(long crossfade) {
+        this.crossfade = Math.max(0, crossfade);
+    }
+
+    /**
+     * Plays a queue of media files, starting at the media file at {@code index}. Any media file that is playing is stopped.
+     *
+     * @param paths absolute paths of the media files
+     * @param index position of the first media file to be played
+     */
+    public void play(List<String> paths, int index) {
+        dispose();
+
+        playedAt = System.nanoTime();
+        queue.addAll(paths);
+
+        PlaybackSession session = open(index);
+
+        if (session == null) {
+            playedAt = 0;
+
+            return; // None of the media files can be played
+        }
+
+        session.getPlayer().setAutoPlay(true); // Played as soon as it's ready
+
+        start(nextIndex, session);
+    }
+
+    /**
+     * Makes a session the current one and starts opening the next media file once it's ready.
+     */
+    private void start(int index, PlaybackSession session) {
+        MediaPlayer player = session.getPlayer();
+
+        this.index = index;
+        nextIndex = index + 1;
+        current = session;
+
+        if (fade == null) {
+            player.setVolume(volume);
+        }
+
+        player.setOnEndOfMedia(() -> ended(session));
+
+        session.listen(player.statusProperty(), (observable, oldValue, newValue) -> {
+            if (newValue == MediaPlayer.Status.PLAYING && endedAt != 0) {
+                lastGap = System.nanoTime() - endedAt;
+                endedAt = 0;
+
+                Metrics.playback().recordGap(lastGap);
+            }
+
+            if (newValue == MediaPlayer.Status.READY || newValue == MediaPlayer.Status.PLAYING) {
+                if (playedAt != 0) {
+                    Metrics.playback().recordReady(playedAt);
+                    playedAt = 0;
+                }
+
+                preload();
+            }
+        });
+
+        if (crossfade > 0) {
+            session.listen(player.currentTimeProperty(), (observable, oldValue, newValue) -> {
+                Duration total = player.getTotalDuration();
+
+                if (fade == null && total != null && !total.isUnknown() && !total.isIndefinite() && total.toMillis() - newValue.toMillis() <= crossfade) {
+                    crossfade(session);
+                }
+            });
+        }
+
+        onChanged.accept(session);
+    }
+
+    /**
+     * Opens the next media file of the queue unless it's already open.
+     */
+    private void preload() {
+        if (next == null && nextIndex < queue.size()) {
+            next = open(nextIndex);
+        }
+    }
+
+    /**
+     * Opens the first media file of the queue from a position on that can be opened, skipping those that can't. {@link #nextIndex} is set to the position of the opened media file, or to the
+     * end of the queue if none could be opened.
+     *
+     * @param from position of the first media file to be tried
+     * @return session of the opened media file, or {@code null} if none of the remaining media files could be opened
+     */
+    private PlaybackSession open(int from) {
+        for (nextIndex = from; nextIndex < queue.size(); nextIndex++) {
+            try {
+                return new PlaybackSession(queue.get(nextIndex));
+            } catch (MediaException | IllegalArgumentException e) {
+                System.err.println("Skipping " + queue.get(nextIndex) + ", which can't be played: " + e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts the next media file the moment the current one ends.
+     */
+    private void ended(PlaybackSession session) {
+        PlaybackSession following = next != null ? next : open(nextIndex);
+
+        if (following == null) {
+            return; // The end of the queue
+        }
+
+        endedAt = System.nanoTime();
+
+        following.getPlayer().play(); // Played once it's ready if it hasn't finished buffering yet
+        next = null;
+
+        session.close();
+        start(nextIndex, following);
+    }
+
+    /**
+     * Starts the next media file while the current one is faded out.
+     */
+    private void crossfade(PlaybackSession session) {
+        if (next == null || next.getPlayer().getStatus() != MediaPlayer.Status.READY) {
+            return; // Played back to back instead
+        }
+
+        PlaybackSession following = next;
+        next = null;
+
+        endedAt = System.nanoTime();
+        following.getPlayer().setVolume(0);
+        following.getPlayer().play();
+
+        session.unbind(); // Only heard from now on, until it's closed once it has faded out
+
+        fading = session;
+        fade = new Timeline(new KeyFrame(Duration.millis(crossfade), new KeyValue(session.getPlayer().volumeProperty(), 0),
+                new KeyValue(following.getPlayer().volumeProperty(), volume)));
+        fade.setOnFinished(e -> finishFade());
+        fade.play();
+
+        start(nextIndex, following);
+    }
+
+    private void finishFade() {
+        if (fade != null) {
+            fade.stop();
+            fade = null;
+        }
+
+        if (fading != null) {
+            fading.close();
+            fading = null;
+        }
+    }
+
+    /**
+     * Sets the volume of the current media file and every media file after it. A crossfade in progress is completed right away.
+     *
+     * @param volume volume between {@code 0.0} and {@code 1.0}
+     */
+    public void setVolume(double volume) {
+        this.volume = volume;
+
+        finishFade();
+
+        if (current != null) {
+            current.getPlayer().setVolume(volume);
+        }
+    }
+
+    /**
+     * @param onChanged receives the session of every media file as it becomes the current one, including the first
+     */
+    public void setOnChanged(Consumer<PlaybackSession> onChanged) {
+        this.onChanged = onChanged;
+    }
+
+    /**
+     * @return session of the current media file, or {@code null} if nothing is being played
+     */
+    public PlaybackSession getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return absolute path of the current media file, or {@code null} if nothing is being played
+     */
+    public String getCurrentPath() {
+        return index >= 0 ? queue.get(index) : null;
+    }
+
+    /**
+     * @return position of the current media file in the queue, or {@code -1} if nothing is being played
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return nanoseconds from the end of the previous media file until the current one was playing, or {@code -1} if there has been no transition
+     */
+    public long getLastGap() {
+        return lastGap;
+    }
+
+    public long getCrossfade() {
+        return crossfade;
+    }
+
+    /**
+     * Stops playing and closes every session.
+     */
+    public void dispose() {
+        finishFade();
+
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+
+        if (next != null) {
+            next.close();
+            next = null;
+        }
+
+        queue.clear();
+        index = -1;
+        endedAt = 0;
+        playedAt = 0;
+    }
+}
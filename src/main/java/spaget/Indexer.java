@@ -0,0 +1,161 @@
+package spaget;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Updates the library from the command line without the {@code JavaFX} toolkit, e.g. to index a large collection on a server or from a nightly job before the player is opened.
+ * <p>
+ * The library folders configured in {@code library.properties} are scanned, their tags and album covers are read, and the store configured in {@code db.properties} is reconciled with them, the same
+ * way the player does when it starts. The scan cache and the artwork folder are shared with the player, so it only has to read what changed since. Videos are measured by a pluggable
+ * {@link LengthProber}, which is {@link LengthProber#NONE} from the command line, since the {@link VideoProber} needs a {@code JavaFX} {@code MediaPlayer}; they are measured the next time the
+ * player scans the library.
+ * <p>
+ * No class that uses {@code JavaFX} is loaded, so the indexer runs on the class path without it:
+ * <pre>
+ * java -cp spaget-player-4.0.0.jar:libs/* spaget.Indexer [--parallelism n] [--dry-run]
+ * </pre>
+ * {@code --parallelism} sets the number of files parsed at the same time in every library folder. {@code --dry-run} prints the changes without storing them or extracting album covers, and scans
+ * with a temporary copy of the scan cache. A summary of the throughput is printed when the indexer finishes.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Launcher
+ * @since 18.10.2026
+ */
+public class Indexer {
+    private static final Path CACHE_FILE = Paths.get("library.cache");
+    private static final Path ARTWORK_DIRECTORY = Paths.get("artwork");
+    private static final Logger TAGGER_LOG = Logger.getLogger("org.jaudiotagger"); // Kept so its level isn't lost, since JAudioTagger otherwise logs every file it reads
+
+    private final List<LibraryRoot> roots;
+    private final Path cacheFile;
+    private final ArtworkSink artwork; // Null if the album covers aren't extracted
+    private final LengthProber prober;
+    private final boolean dryRun;
+
+    /**
+     * Sole constructor.
+     *
+     * @param roots     folders containing the media files
+     * @param cacheFile path of the file the metadata is cached in
+     * @param artwork   store the album covers are extracted to, or {@code null} if they aren't extracted
+     * @param prober    measures the length of videos
+     * @param dryRun    whether the changes are determined without being stored
+     */
+    public Indexer(List<LibraryRoot> roots, Path cacheFile, ArtworkSink artwork, LengthProber prober, boolean dryRun) {
+        this.roots = List.copyOf(roots);
+        this.cacheFile = cacheFile;
+        this.artwork = artwork;
+        this.prober = prober;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Scans the library folders and stores the changes to the library, unless it's a dry run.
+     *
+     * @return the changes to the stored media files
+     */
+    public LibraryDelta run() {
+        long start = System.nanoTime();
+        Map<String, Media> stored = LibraryCatalog.index(Repositories.media().findAll()); // Media files from the store by path
+
+        Metrics.scanner().recordPhase(ScannerMetrics.Phase.READ_DATABASE, start);
+
+        LibraryScanner scanner = new LibraryScanner(roots, cacheFile, artwork);
+        ArrayList<Media> localMedia = scanner.scan();
+
+        prober.submit(scanner.getUnprobedVideos());
+
+        LibraryDelta changes = LibraryDelta.between(stored, LibraryCatalog.index(localMedia), scanner::isUnscanned);
+
+        if (!dryRun) {
+            start = System.nanoTime();
+            Repositories.media().apply(changes);
+            Metrics.scanner().recordPhase(ScannerMetrics.Phase.STORE_CHANGES, start);
+        }
+
+        return changes;
+    }
+
+    public static void main(String[] args) {
+        TAGGER_LOG.setLevel(Level.WARNING);
+
+        Integer parallelism = null;
+        boolean dryRun = false;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--dry-run")) {
+                dryRun = true;
+            } else if (args[i].equals("--parallelism") && i + 1 < args.length && args[i + 1].matches("[1-9][0-9]*")) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Usage: spaget.Indexer [--parallelism n] [--dry-run]");
+                System.exit(2);
+            }
+        }
+
+        Properties props = new Properties();
+
+        try (InputStream input = new FileInputStream("library.properties")) {
+            props.load(input);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+
+        List<LibraryRoot> roots = new ArrayList<>();
+
+        for (LibraryRoot root : LibraryRoot.fromProperties(props)) {
+            roots.add(parallelism != null ? new LibraryRoot(root.getPath(), parallelism) : root);
+        }
+
+        Path cacheFile = CACHE_FILE;
+        ArtworkSink artwork = null;
+
+        try {
+            if (dryRun) {
+                cacheFile = Files.createTempFile("spaget-indexer", ".cache"); // The player's cache isn't changed, but still saves parsing the files that haven't changed
+                cacheFile.toFile().deleteOnExit();
+
+                if (Files.exists(CACHE_FILE)) {
+                    Files.copy(CACHE_FILE, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.delete(cacheFile);
+                }
+            } else {
+                artwork = new ArtworkFolder(ARTWORK_DIRECTORY); // The player renders their thumbnails and backdrops when they are first shown
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+
+        long start = System.nanoTime();
+        LibraryDelta changes = new Indexer(roots, cacheFile, artwork, LengthProber.NONE, dryRun).run();
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+
+        Repositories.close();
+
+        /* Summary */
+
+        ScannerMetrics scanned = Metrics.scanner();
+        DatabaseMetrics database = Metrics.database();
+        double megabytes = scanned.getBytesVisited() / (1024.0 * 1024.0);
+
+        System.out.printf("Indexed %d files (%.1f MB) in %.1f s: %.1f files/s, %.1f MB/s%n", scanned.getFilesVisited(), megabytes, seconds, scanned.getFilesVisited() / seconds,
+                megabytes / seconds);
+        System.out.printf("Parsed %d files, %d unchanged, %d unreadable%n", scanned.getFilesParsed(), scanned.getFilesSkipped(), scanned.getFilesFailed());
+        System.out.println("Changes: " + changes + (dryRun ? " (dry run, nothing was stored)" : ""));
+        System.out.println("Database round trips: " + (database.getQueries() + database.getUpdates()));
+    }
+}
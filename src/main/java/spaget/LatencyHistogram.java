@@ -0,0 +1,137 @@
+package spaget;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of durations, recorded from any number of threads without locking.
+ * <p>
+ * Durations are counted in buckets whose bounds double from one microsecond, so a percentile is known to within a factor of two, which is enough to tell a slow query from a fast one. Recording
+ * only increments a few {@code LongAdder}s, so it's cheap enough to be done on every call of a hot path. The getters are shown as the attributes of a histogram when it's read through {@code JMX}.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Metrics
+ * @since 18.10.2026
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 40; // Bucket i counts durations below 2^i microseconds, the last one every longer duration
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Sole constructor.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(nanos / 1000, 0);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+
+        buckets[bucket].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Records the time since {@code start}.
+     *
+     * @param start value of {@code System.nanoTime()} when the measured operation started
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return average duration in milliseconds, or {@code 0} if nothing has been recorded
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+
+        return n == 0 ? 0 : total.sum() / (n * 1_000_000.0);
+    }
+
+    /**
+     * @return longest duration in milliseconds
+     */
+    public double getMaxMillis() {
+        return max.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return median duration in milliseconds, see {@link #getPercentileMillis(double)}
+     */
+    public double getMedianMillis() {
+        return getPercentileMillis(50);
+    }
+
+    /**
+     * @return 99th percentile of the durations in milliseconds, see {@link #getPercentileMillis(double)}
+     */
+    public double getP99Millis() {
+        return getPercentileMillis(99);
+    }
+
+    /**
+     * @param percentile percentile between {@code 0} and {@code 100}
+     * @return upper bound in milliseconds of the bucket containing the percentile, or {@code 0} if nothing has been recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS && n > 0; i++) {
+            seen += counts[i];
+
+            if (seen >= rank) {
+                return Math.min(1L << i, max.get() / 1000.0) / 1000.0; // Never more than the longest duration, e.g. of the last bucket
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Forgets every recorded duration. Durations recorded while the histogram is reset may be partly kept.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * @return count, mean, median, 99th percentile, and maximum, in milliseconds
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.2f p50=%.2f p99=%.2f max=%.2f", getCount(), getMeanMillis(), getMedianMillis(), getP99Millis(), getMaxMillis());
+    }
+}
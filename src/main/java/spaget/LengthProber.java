@@ -0,0 +1,42 @@
+package spaget;
+
+import java.util.Collection;
+
+/**
+ * Measures the length of media files in the background whose length can't be read from their tags, i.e. videos.
+ * <p>
+ * The player measures them with a {@link VideoProber}, which needs the {@code JavaFX} toolkit. The {@link Indexer} runs without it and uses {@link #NONE}, so the videos are measured the next time
+ * the player scans the library.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public interface LengthProber extends AutoCloseable {
+
+    /**
+     * Prober that leaves every video unmeasured.
+     */
+    LengthProber NONE = new LengthProber() {
+        @Override
+        public void submit(Collection<Media> videos) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Queues videos to be measured. Videos that are already queued are ignored.
+     *
+     * @param videos videos whose length is unknown
+     */
+    void submit(Collection<Media> videos);
+
+    /**
+     * Stops measuring videos. Videos that weren't measured are measured again the next time the library is scanned.
+     */
+    @Override
+    void close();
+}
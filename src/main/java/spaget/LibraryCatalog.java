@@ -0,0 +1,245 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory catalog of every {@link Media} in the library.
+ * <p>
+ * Media files are indexed by path, and by artist and title ignoring case, so lookups don't have to search the whole library. The artist and title indexes are built the first time they are used,
+ * so filling the catalog at startup only costs the path index. {@link #reconcile(Collection)} compares the catalog with a new list of media files in a single pass over each. Every change is passed to the registered listeners as a {@link LibraryDelta}, on the thread that made the change.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class LibraryCatalog {
+    private final Map<String, Media> byPath = new LinkedHashMap<>(); // Kept in the order the media files were added
+    private final Map<String, Set<Media>> byArtist = new HashMap<>();
+    private final Map<String, Set<Media>> byTitle = new HashMap<>();
+    private final List<Consumer<LibraryDelta>> listeners = new CopyOnWriteArrayList<>();
+    private boolean indexed; // Whether byArtist and byTitle have been built
+
+    /**
+     * @param path absolute path of a media file
+     * @return the media file with the {@code path}, or {@code null} if it isn't in the library
+     */
+    public synchronized Media get(String path) {
+        return byPath.get(path);
+    }
+
+    public synchronized boolean contains(String path) {
+        return byPath.containsKey(path);
+    }
+
+    /**
+     * @param artist artist to look up, ignoring case
+     * @return media files by the {@code artist}
+     */
+    public synchronized List<Media> getByArtist(String artist) {
+        buildIndexes();
+
+        return new ArrayList<>(byArtist.getOrDefault(normalize(artist), Set.of()));
+    }
+
+    /**
+     * @param title title to look up, ignoring case
+     * @return media files with the {@code title}
+     */
+    public synchronized List<Media> getByTitle(String title) {
+        buildIndexes();
+
+        return new ArrayList<>(byTitle.getOrDefault(normalize(title), Set.of()));
+    }
+
+    /**
+     * @return every media file in the library, in the order they were added
+     */
+    public synchronized ArrayList<Media> getAll() {
+        return new ArrayList<>(byPath.values());
+    }
+
+    public synchronized int size() {
+        return byPath.size();
+    }
+
+    /**
+     * Makes the catalog contain exactly the {@code media}. Media files that are already in the catalog keep their position, and new media files are added at the end.
+     *
+     * @param media every media file that should be in the library
+     * @return the changes made to the catalog
+     */
+    public LibraryDelta reconcile(Collection<Media> media) {
+        LibraryDelta delta = new LibraryDelta();
+
+        synchronized (this) {
+            if (byPath.isEmpty()) {
+
+                /* Nothing to compare with, e.g. when the catalog is filled from the library's snapshot */
+
+                for (Media current : media) {
+                    if (byPath.putIfAbsent(current.getPath(), current) == null) {
+                        delta.getAdded().add(current);
+                        index(current);
+                    }
+                }
+            } else {
+                Map<String, Media> target = index(media);
+
+                for (Media old : byPath.values()) {
+                    if (!target.containsKey(old.getPath())) {
+                        delta.getRemoved().add(old);
+                    }
+                }
+
+                for (Media current : target.values()) {
+                    Media old = byPath.get(current.getPath());
+
+                    if (old == null) {
+                        delta.getAdded().add(current);
+                    } else if (old != current && !old.hasSameMetadata(current)) {
+                        delta.getUpdated().add(current);
+                    }
+                }
+
+                update(delta);
+            }
+        }
+
+        return notifyListeners(delta);
+    }
+
+    /**
+     * Applies changes that have already been determined, e.g. by an incremental update.
+     *
+     * @param delta the changes to be applied
+     */
+    public void apply(LibraryDelta delta) {
+        synchronized (this) {
+            update(delta);
+        }
+
+        notifyListeners(delta);
+    }
+
+    private void update(LibraryDelta delta) {
+        for (Media media : delta.getRemoved()) {
+            remove(media);
+        }
+
+        for (Media media : delta.getUpdated()) {
+            Media old = byPath.get(media.getPath());
+
+            if (old != null) {
+                unindex(old);
+            }
+
+            byPath.put(media.getPath(), media); // Replacing the value keeps the media file's position
+            index(media);
+        }
+
+        for (Media media : delta.getAdded()) {
+            Media old = byPath.put(media.getPath(), media);
+
+            if (old != null) {
+                unindex(old);
+            }
+
+            index(media);
+        }
+    }
+
+    private void remove(Media media) {
+        Media old = byPath.remove(media.getPath());
+
+        if (old != null) {
+            unindex(old);
+        }
+    }
+
+    private void buildIndexes() {
+        if (!indexed) {
+            indexed = true;
+
+            for (Media media : byPath.values()) {
+                index(media);
+            }
+        }
+    }
+
+    private void index(Media media) {
+        if (!indexed) {
+            return;
+        }
+
+        byArtist.computeIfAbsent(normalize(media.getArtist()), key -> new LinkedHashSet<>()).add(media);
+        byTitle.computeIfAbsent(normalize(media.getTitle()), key -> new LinkedHashSet<>()).add(media);
+    }
+
+    private void unindex(Media media) {
+        if (!indexed) {
+            return;
+        }
+
+        removeFromIndex(byArtist, normalize(media.getArtist()), media);
+        removeFromIndex(byTitle, normalize(media.getTitle()), media);
+    }
+
+    private static void removeFromIndex(Map<String, Set<Media>> index, String key, Media media) {
+        Set<Media> set = index.get(key);
+
+        if (set != null && set.remove(media) && set.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private LibraryDelta notifyListeners(LibraryDelta delta) {
+        if (!delta.isEmpty()) {
+            for (Consumer<LibraryDelta> listener : listeners) {
+                listener.accept(delta);
+            }
+        }
+
+        return delta;
+    }
+
+    /**
+     * @param listener receives every change made to the catalog, called on the thread that made the change
+     */
+    public void addListener(Consumer<LibraryDelta> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<LibraryDelta> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Indexes a list of media files by path.
+     *
+     * @param media media files to be indexed
+     * @return {@code Map} of the media files by path, in the order of the list
+     */
+    public static Map<String, Media> index(Collection<Media> media) {
+        Map<String, Media> index = new LinkedHashMap<>(media.size() * 4 / 3 + 1);
+
+        for (Media m : media) {
+            index.put(m.getPath(), m);
+        }
+
+        return index;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
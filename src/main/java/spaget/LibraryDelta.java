@@ -0,0 +1,111 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Changes made to the library by an incremental update.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see App#applyChanges(java.util.Collection)
+ * @since 18.10.2026
+ */
+public class LibraryDelta {
+    private final List<Media> added = new ArrayList<>();
+    private final List<Media> updated = new ArrayList<>();
+    private final List<Media> removed = new ArrayList<>();
+
+    /**
+     * Determines the changes that make the stored media files match the media files in the library folders, assuming every stored media file was scanned.
+     *
+     * @param stored media files in the store by path, which are changed to the media files the store contains after the changes
+     * @param local  media files in the library folders by path
+     * @return the changes to be stored
+     * @see #between(Map, Map, Predicate)
+     */
+    public static LibraryDelta between(Map<String, Media> stored, Map<String, Media> local) {
+        return between(stored, local, path -> false);
+    }
+
+    /**
+     * Determines the changes that make the stored media files match the media files in the library folders.
+     * <p>
+     * Stored media files that no longer exist are removed, unless the scan didn't reach them, and new media files are added. Videos whose length is known locally but not in the store, e.g.
+     * because it couldn't be written when it was measured, are updated as well.
+     *
+     * @param stored    media files in the store by path, which are changed to the media files the store contains after the changes
+     * @param local     media files in the library folders by path
+     * @param unscanned tells whether the scan missed a path, e.g. because its disk is unplugged, so its stored media file is kept
+     * @return the changes to be stored
+     * @see LibraryScanner#isUnscanned(String)
+     */
+    public static LibraryDelta between(Map<String, Media> stored, Map<String, Media> local, Predicate<String> unscanned) {
+        LibraryDelta changes = new LibraryDelta();
+
+        /* Delete records of non-existent media files */
+
+        Iterator<Media> iterator = stored.values().iterator(); // An Iterator is used instead of a for-loop to avoid a ConcurrentModificationException
+
+        while (iterator.hasNext()) {
+            Media media = iterator.next();
+
+            if (!local.containsKey(media.getPath()) && !unscanned.test(media.getPath())) {
+                changes.getRemoved().add(media);
+
+                iterator.remove();
+            }
+        }
+
+        /* New media files are inserted into the store */
+
+        for (Media media : local.values()) {
+            Media old = stored.putIfAbsent(media.getPath(), media);
+
+            if (old == null) {
+                changes.getAdded().add(media);
+            } else if (old.getLength() == 0 && media.getLength() > 0) {
+                changes.getUpdated().add(media);
+                stored.put(media.getPath(), media);
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * @return media files that are new to the library
+     */
+    public List<Media> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return new versions of media files whose metadata has changed
+     */
+    public List<Media> getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return media files that no longer exist
+     */
+    public List<Media> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return added.size() + " added, " + updated.size() + " updated, " + removed.size() + " removed";
+    }
+}
@@ -0,0 +1,87 @@
+package spaget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Models a folder that is part of the library, together with how many of its files may be parsed at the same time.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class LibraryRoot {
+    static final Path DEFAULT_PATH = Paths.get("media").toAbsolutePath(); // Folder scanned if no folders are configured
+
+    private final Path path;
+    private final int parallelism;
+
+    /**
+     * Sole constructor.
+     *
+     * @param path        absolute path of the folder
+     * @param parallelism number of files parsed at the same time
+     */
+    public LibraryRoot(Path path, int parallelism) {
+        this.path = path;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Reads the library folders from the contents of {@code library.properties}.
+     * <p>
+     * Library folders are numbered {@code root.1}, {@code root.2}, and so on, and may override the default {@code scan.parallelism} with {@code root.<n>.parallelism}. {@link #DEFAULT_PATH} is used
+     * if no folders are configured.
+     *
+     * @param props contents of {@code library.properties}
+     * @return the library folders, in the order they are numbered
+     */
+    static List<LibraryRoot> fromProperties(Properties props) {
+        String parallelism = props.getProperty("scan.parallelism", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        List<LibraryRoot> roots = new ArrayList<>();
+
+        for (int i = 1; props.containsKey("root." + i); i++) {
+            roots.add(new LibraryRoot(Paths.get(props.getProperty("root." + i)).toAbsolutePath(), Integer.parseInt(props.getProperty("root." + i + ".parallelism", parallelism))));
+        }
+
+        if (roots.isEmpty()) {
+            roots.add(new LibraryRoot(DEFAULT_PATH, Integer.parseInt(parallelism)));
+        }
+
+        return roots;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns an object identifying the storage device of the folder. Roots on the same device are scanned one after another, so they don't compete for the same disk.
+     *
+     * @return the folder's {@code FileStore}, or the path itself if it can't be determined
+     */
+    Object getDevice() {
+        try {
+            return Files.getFileStore(path);
+        } catch (IOException e) {
+            return path;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
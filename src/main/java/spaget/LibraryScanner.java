@@ -0,0 +1,618 @@
+package spaget;
+
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.datatype.Artwork;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Finds the media files in the library folders and reads their metadata.
+ * <p>
+ * Metadata is kept in a {@link ScanCache}, so only files that are new or have been modified since the last scan are probed and parsed with {@link org.jaudiotagger}.
+ * <p>
+ * Every {@link LibraryRoot} is walked recursively. Roots on the same storage device are scanned one after another so they don't compete for the same disk, while roots on different devices are
+ * scanned at the same time. Folders that can't be read and symbolic link loops are reported and skipped. Roots that don't exist, e.g. an unplugged disk, folders that couldn't be read completely,
+ * and files that couldn't be parsed are remembered, so {@link #isUnscanned(String)} tells the media files that may still exist apart from those that have been deleted.
+ * <p>
+ * Scanning a root is a pipeline of three stages: a walker thread lists the files, a bounded pool of parser threads reads their metadata, and a collector gathers the results in the order the files
+ * were listed. The walker waits when too many files are waiting to be collected, so a slow disk or parser never lets the pipeline grow without bounds. The result is the same as scanning the files
+ * one by one.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class LibraryScanner {
+    private static final int QUEUED_PER_THREAD = 64; // Files each parser thread may have queued or waiting to be collected before the walker has to wait
+
+    private static final Future<Media> END = CompletableFuture.completedFuture(null); // Marks the end of the walk
+
+    private final List<LibraryRoot> roots;
+    private final ScanCache cache;
+    private final ArtworkSink artwork;  // Stores the album covers of audio files, or null if they aren't extracted
+    private final List<Media> unprobedVideos = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger cached = new AtomicInteger();
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final Set<String> unscannedFolders = ConcurrentHashMap.newKeySet();  // Absolute paths of the roots and folders the last scan didn't walk completely
+    private final Set<String> failedFiles = ConcurrentHashMap.newKeySet();       // Absolute paths of the files the last scan couldn't parse
+    private boolean loaded;
+
+    /**
+     * Creates a scanner for a single folder that parses files on the calling thread.
+     *
+     * @param root      folder containing the media files
+     * @param cacheFile path of the file the metadata is cached in
+     */
+    public LibraryScanner(Path root, Path cacheFile) {
+        this(List.of(new LibraryRoot(root, 1)), cacheFile);
+    }
+
+    /**
+     * @param roots     folders containing the media files
+     * @param cacheFile path of the file the metadata is cached in
+     */
+    public LibraryScanner(List<LibraryRoot> roots, Path cacheFile) {
+        this(roots, cacheFile, null);
+    }
+
+    /**
+     * Creates a scanner that extracts the album covers of audio files when they are parsed.
+     *
+     * @param roots     folders containing the media files
+     * @param cacheFile path of the file the metadata is cached in
+     * @param artwork   store the album covers are extracted to
+     */
+    public LibraryScanner(List<LibraryRoot> roots, Path cacheFile, ArtworkSink artwork) {
+        this.roots = List.copyOf(roots);
+        this.artwork = artwork;
+
+        cache = new ScanCache(cacheFile);
+    }
+
+    /**
+     * Retrieves all media files in the library folders as an {@code ArrayList}.
+     *
+     * @return {@code ArrayList} of local media files.
+     * @see #scan(ScanListener)
+     */
+    public ArrayList<Media> scan() {
+        return scan(ScanListener.NONE);
+    }
+
+    /**
+     * Retrieves all media files in the library folders as an {@code ArrayList}, reporting the progress to the {@code listener}.
+     * <p>
+     * Videos are returned with the length stored in the cache, which is {@code 0} until their length has been measured and set with {@link #setLength(String, int)}. If the scan is cancelled the
+     * returned list only contains the files scanned until then.
+     *
+     * @param listener receives the media files as they are found and may cancel the scan
+     * @return {@code ArrayList} of local media files, in the order of the roots.
+     * @see #getUnprobedVideos()
+     */
+    public ArrayList<Media> scan(ScanListener listener) {
+        long start = System.nanoTime();
+
+        loadCache();
+
+        unprobedVideos.clear();
+        unscannedFolders.clear();
+        failedFiles.clear();
+        cached.set(0);
+        parsed.set(0);
+
+        SharedListener shared = new SharedListener(listener, cache.size()); // The files of the last scan are the best guess of how many there are
+        Map<LibraryRoot, List<Media>> results = new ConcurrentHashMap<>();
+        long walkStart = System.nanoTime();
+
+        /* Group the roots by storage device */
+
+        Map<Object, List<LibraryRoot>> devices = new LinkedHashMap<>();
+
+        for (LibraryRoot root : roots) {
+            devices.computeIfAbsent(root.getDevice(), device -> new ArrayList<>()).add(root);
+        }
+
+        if (devices.size() == 1) {
+            scanDevice(roots, results, shared);
+        } else {
+            List<Thread> threads = new ArrayList<>();
+
+            for (List<LibraryRoot> device : devices.values()) {
+                Thread thread = new Thread(() -> scanDevice(device, results, shared), "spaget-scan-device");
+                thread.setDaemon(true);
+                thread.start();
+
+                threads.add(thread);
+            }
+
+            try {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                threads.forEach(Thread::interrupt);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        ArrayList<Media> localMedia = new ArrayList<>(); // Stores all media files from the local directories
+
+        for (LibraryRoot root : roots) {
+            localMedia.addAll(results.getOrDefault(root, List.of()));
+        }
+
+        Metrics.scanner().recordPhase(ScannerMetrics.Phase.WALK, walkStart);
+
+        if (!listener.isCancelled()) {
+            shared.complete();
+        }
+
+        long saveStart = System.nanoTime();
+
+        if (Thread.currentThread().isInterrupted()) {
+            roots.forEach(root -> unscannedFolders.add(root.getPath().toAbsolutePath().toString())); // Any root may have been left unfinished
+        }
+
+        if (listener.isCancelled() || !unscannedFolders.isEmpty()) {
+            cache.flush(); // Files that weren't reached must stay in the cache
+        } else {
+            cache.save();
+        }
+
+        Metrics.scanner().recordPhase(ScannerMetrics.Phase.SAVE_CACHE, saveStart);
+
+        System.out.println("Scanned " + (cached.get() + parsed.get()) + " files (" + cached + " cached, " + parsed + " parsed) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        return localMedia;
+    }
+
+    /**
+     * Scans the roots of a single storage device one after another.
+     */
+    private void scanDevice(List<LibraryRoot> device, Map<LibraryRoot, List<Media>> results, ScanListener listener) {
+        for (LibraryRoot root : device) {
+            if (listener.isCancelled()) {
+                return;
+            }
+
+            if (!Files.isDirectory(root.getPath())) {
+                System.err.println("Library folder " + root + " doesn't exist and is skipped");
+                unscannedFolders.add(root.getPath().toAbsolutePath().toString()); // Its media files are kept in case the disk has only been unplugged
+
+                continue;
+            }
+
+            List<Media> localMedia = new ArrayList<>();
+
+            if (root.getParallelism() == 1) {
+                walk(root.getPath(), listener, file -> {
+                    collect(scanFile(file), localMedia, listener);
+
+                    return true;
+                });
+            } else {
+                scanParallel(root, localMedia, listener);
+            }
+
+            results.put(root, localMedia);
+        }
+    }
+
+    /**
+     * Walks a folder and its subfolders, passing every regular file to the {@code handler}.
+     * <p>
+     * Symbolic links are followed. Folders that can't be read and link loops are reported and skipped without stopping the walk. Folders that couldn't be read completely are remembered as
+     * {@link #isUnscanned(String) unscanned}, except for link loops, whose files are reached through the folder they link to.
+     *
+     * @param root     folder to be walked
+     * @param listener stops the walk when it's cancelled
+     * @param handler  receives the files, and returns {@code false} to stop the walk
+     */
+    private void walk(Path root, ScanListener listener, Predicate<File> handler) {
+        try {
+            Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        Metrics.scanner().recordVisited(attrs.size());
+
+                        if (!handler.test(file.toFile())) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+
+                    return listener.isCancelled() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    if (e instanceof FileSystemLoopException) {
+                        System.err.println("Skipping symbolic link loop at " + file);
+                    } else {
+                        System.err.println("Skipping unreadable " + file + ": " + e.getMessage());
+                        unscannedFolders.add(file.toAbsolutePath().toString());
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    if (e != null) {
+                        System.err.println("Stopped reading " + dir + ": " + e.getMessage()); // Some of its entries weren't listed
+                        unscannedFolders.add(dir.toAbsolutePath().toString());
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            unscannedFolders.add(root.toAbsolutePath().toString());
+        }
+    }
+
+    private static void collect(Media media, List<Media> localMedia, ScanListener listener) {
+        if (media != null) {
+            localMedia.add(media);
+            listener.found(media);
+        }
+
+        listener.progress(0, -1);
+    }
+
+    /**
+     * Scans files that have been created, modified, or deleted since the last scan, without scanning the rest of the library.
+     * <p>
+     * Deleted files are removed from the cache, and so is every file inside a deleted folder. Videos whose length hasn't been measured are available from {@link #getUnprobedVideos()} afterwards.
+     *
+     * @param paths paths of the changed files
+     * @return media files among the {@code paths} that still exist, by path
+     */
+    public Map<String, Media> scan(Collection<Path> paths) {
+        Map<String, Media> localMedia = new LinkedHashMap<>();
+
+        loadCache();
+
+        unprobedVideos.clear();
+
+        for (Path path : paths) {
+            File file = path.toFile();
+
+            if (file.isFile()) {
+                Media media = scanFile(file);
+
+                if (media != null) {
+                    localMedia.put(media.getPath(), media);
+                }
+            } else if (!file.exists()) {
+                cache.remove(file.getAbsolutePath());
+                cache.removeFolder(file.getAbsolutePath()); // The path may have been a folder
+
+                if (artwork != null) {
+                    artwork.assign(file.getAbsolutePath(), null);
+                    artwork.unassignFolder(file.getAbsolutePath());
+                }
+            }
+        }
+
+        cache.flush();
+
+        return localMedia;
+    }
+
+    private synchronized void loadCache() {
+        if (!loaded) {
+            long start = System.nanoTime();
+
+            cache.load();
+            loaded = true;
+
+            Metrics.scanner().recordPhase(ScannerMetrics.Phase.LOAD_CACHE, start);
+        }
+    }
+
+    /**
+     * Scans a root with the walker, parser, and collector stages described in the class documentation.
+     *
+     * @param root       folder to be scanned
+     * @param localMedia list the media files are added to, in the order they were walked
+     * @param listener   receives the media files as they are collected and may cancel the scan
+     */
+    private void scanParallel(LibraryRoot root, List<Media> localMedia, ScanListener listener) {
+        ExecutorService parsers = Executors.newFixedThreadPool(root.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "spaget-scan-parser");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        Semaphore capacity = new Semaphore(root.getParallelism() * QUEUED_PER_THREAD);  // Released once a result has been collected
+        BlockingQueue<Future<Media>> results = new LinkedBlockingQueue<>();             // Results in the order the files were walked
+
+        Thread walker = new Thread(() -> {
+            try {
+                walk(root.getPath(), listener, file -> {
+                    try {
+                        capacity.acquire();
+                        results.put(parsers.submit(() -> scanFile(file)));
+
+                        return true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+
+                        return false;
+                    }
+                });
+            } finally {
+                results.add(END);
+            }
+        }, "spaget-scan-walker");
+
+        walker.setDaemon(true);
+        walker.start();
+
+        try {
+            Future<Media> result;
+
+            while ((result = results.take()) != END) {
+                capacity.release();
+
+                if (listener.isCancelled()) {
+                    walker.interrupt();
+
+                    break;
+                }
+
+                try {
+                    collect(result.get(), localMedia, listener);
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            walker.interrupt();
+            Thread.currentThread().interrupt();
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the metadata of a single file from the cache, or parses it if the file is new or has been modified.
+     *
+     * @param file file to be scanned
+     * @return {@code Media} representing the file, or {@code null} if it isn't an audio or video file
+     */
+    private Media scanFile(File file) {
+        String path = file.getAbsolutePath(); // Absolute path of current media file
+        ScanCache.Entry entry = cache.get(path, file.length(), file.lastModified());
+
+        if (entry != null) {
+            cached.incrementAndGet();
+            Metrics.scanner().recordSkipped();
+        } else {
+            long start = System.nanoTime();
+
+            entry = parse(file, artwork);
+            parsed.incrementAndGet();
+            Metrics.scanner().recordParsed(start, entry == null);
+
+            if (entry == null) {
+                failedFiles.add(path);
+
+                return null; // The file couldn't be read and will be tried again next scan
+            }
+
+            cache.put(path, entry);
+        }
+
+        switch (entry.type) {
+            case ScanCache.AUDIO:
+                if (artwork != null) {
+                    artwork.assign(path, entry.artwork);
+                }
+
+                return new Media(path, entry.title, entry.artist, entry.length);
+            case ScanCache.VIDEO:
+                Media video = new Media(path, entry.title, entry.artist, Math.max(entry.length, 0));
+
+                if (entry.length == ScanCache.UNPROBED) {
+                    unprobedVideos.add(video);
+                }
+
+                return video;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Probes the content type of a file and reads the {@code ID3} tags, track length, and album cover of audio files using the library JAudioTagger.
+     *
+     * @param file    file to be parsed
+     * @param artwork store the album cover is extracted to, or {@code null} if it isn't extracted
+     * @return metadata of the file, or {@code null} if it couldn't be read
+     */
+    static ScanCache.Entry parse(File file, ArtworkSink artwork) {
+        long size = file.length();
+        long modified = file.lastModified();
+
+        try {
+            String fileType = Files.probeContentType(file.toPath()); // Check whether the file is an audio, video, or other type of file
+
+            if (fileType != null && fileType.contains("audio")) {
+                AudioFile audioFile = AudioFileIO.read(file);
+                Tag tag = audioFile.getTag();
+
+                String title = tag != null ? tag.getFirst(FieldKey.TITLE) : file.getName();
+                String artist = tag != null ? tag.getFirst(FieldKey.ARTIST) : "";
+                int length = audioFile.getAudioHeader().getTrackLength();
+                String hash = null;
+
+                if (artwork != null && tag != null) {
+                    Artwork cover = tag.getFirstArtwork();
+
+                    if (cover != null && !cover.isLinked() && cover.getBinaryData() != null) {
+                        hash = artwork.store(cover.getBinaryData()); // Identical covers, e.g. of the tracks of an album, are only stored once
+                    }
+                }
+
+                return new ScanCache.Entry(size, modified, ScanCache.AUDIO, title, artist, length, hash != null ? hash : "");
+            } else if (fileType != null && fileType.contains("video")) {
+                return new ScanCache.Entry(size, modified, ScanCache.VIDEO, file.getName(), "", ScanCache.UNPROBED, ""); // Measured by the VideoProber
+            }
+
+            return new ScanCache.Entry(size, modified, ScanCache.OTHER, "", "", 0, "");
+        } catch (Exception e) {
+            System.err.println("Couldn't read " + file + ": " + e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Stores the measured length of a video, so it doesn't have to be measured again until the file changes.
+     *
+     * @param path   absolute path of the video
+     * @param length length of the video in seconds, or {@code 0} if it couldn't be measured
+     */
+    public void setLength(String path, int length) {
+        cache.setLength(path, length);
+    }
+
+    /**
+     * Writes changes made to the cache since the last scan, e.g. measured video lengths, without waiting for the next scan.
+     */
+    public void flushCache() {
+        cache.flush();
+    }
+
+    /**
+     * Tells whether the last scan may have missed a file that still exists, because its root doesn't exist, e.g. on an unplugged disk, its folder couldn't be read completely, or the file
+     * couldn't be parsed. The stored media file of such a path should be kept rather than deleted.
+     *
+     * @param path absolute path of a media file
+     * @return {@code true} if the path wasn't scanned
+     * @see LibraryDelta#between(Map, Map, Predicate)
+     */
+    public boolean isUnscanned(String path) {
+        if (failedFiles.contains(path)) {
+            return true;
+        }
+
+        for (String folder : unscannedFolders) {
+            if (path.equals(folder) || path.startsWith(folder.endsWith(File.separator) ? folder : folder + File.separator)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return folders scanned by this scanner
+     */
+    public List<LibraryRoot> getRoots() {
+        return roots;
+    }
+
+    /**
+     * @return videos of the last scan whose length hasn't been measured since they were last modified
+     */
+    public List<Media> getUnprobedVideos() {
+        synchronized (unprobedVideos) {
+            return new ArrayList<>(unprobedVideos);
+        }
+    }
+
+    /**
+     * @return number of files the last scan served from the cache
+     */
+    public int getCached() {
+        return cached.get();
+    }
+
+    /**
+     * @return number of files the last scan had to parse
+     */
+    public int getParsed() {
+        return parsed.get();
+    }
+
+    /**
+     * Passes the calls of the threads scanning different devices on to a listener one at a time, counting the scanned files across all roots.
+     * <p>
+     * The total isn't known until every folder has been walked, so the number of files found by the last scan is reported instead, which is exact unless files have been added or deleted since.
+     * The first scan, which has no cache to go by, reports an unknown total.
+     */
+    private static class SharedListener implements ScanListener {
+        private final ScanListener listener;
+        private final int expected;
+        private int done;
+
+        /**
+         * @param listener listener the calls are passed on to
+         * @param expected number of files expected to be scanned, or {@code 0} if it isn't known
+         */
+        private SharedListener(ScanListener listener, int expected) {
+            this.listener = listener;
+            this.expected = expected;
+        }
+
+        @Override
+        public synchronized void found(Media media) {
+            listener.found(media);
+        }
+
+        @Override
+        public synchronized void progress(int done, int total) {
+            this.done++;
+            listener.progress(this.done, expected > 0 ? Math.max(expected, this.done) : -1); // More files than expected make the progress wait at the end
+        }
+
+        /**
+         * Reports the scan as complete, even if fewer files were found than expected.
+         */
+        private synchronized void complete() {
+            if (done > 0) {
+                listener.progress(done, done);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return listener.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package spaget;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Searches the library on a background thread while the user is typing.
+ * <p>
+ * A {@link SearchIndex} of the {@link LibraryCatalog} is built and kept up to date as the catalog changes on the search thread, so a large library doesn't hold up the startup. Queries are
+ * debounced, so only the last query typed within the debounce delay is searched.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class LibrarySearch {
+    private final SearchIndex index = new SearchIndex();
+    private final long debounce;
+    private final Consumer<SearchResult> onResult;
+    private final ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> pending;
+    private volatile String latest = "";
+    private volatile SearchResult lastResult;
+
+    /**
+     * Indexes the catalog and keeps the index up to date.
+     *
+     * @param catalog  catalog of the library
+     * @param debounce milliseconds to wait for the next keystroke before searching
+     * @param onResult receives the result of each search, called on the search thread
+     */
+    public LibrarySearch(LibraryCatalog catalog, long debounce, Consumer<SearchResult> onResult) {
+        this.debounce = debounce;
+        this.onResult = onResult;
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-search");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        catalog.addListener(delta -> executor.execute(() -> {
+            index.apply(delta); // Applying a change that the index was built with has no effect
+
+            if (!latest.isBlank()) {
+                query(latest); // The matches may have changed
+            }
+        }));
+
+        executor.execute(() -> index.rebuild(catalog.getAll()));
+    }
+
+    /**
+     * Searches for the {@code query} once no other query has been given for the debounce delay.
+     *
+     * @param query text typed by the user
+     */
+    public synchronized void query(String query) {
+        latest = query;
+
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        pending = executor.schedule(() -> {
+            SearchResult result = index.search(query);
+
+            if (query.equals(latest)) {
+                lastResult = result;
+                onResult.accept(result);
+            }
+        }, debounce, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the pending search, e.g. when the search field has been cleared.
+     */
+    public synchronized void clear() {
+        latest = "";
+
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /**
+     * @return the result of the most recent search, or {@code null} if nothing has been searched yet
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+}
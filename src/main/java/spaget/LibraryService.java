@@ -0,0 +1,106 @@
+package spaget;
+
+import javafx.application.Platform;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@code Service} that updates the library on a background thread.
+ * <p>
+ * Media files are passed to the {@code JavaFX} application thread in batches while the library folder is scanned, so the table fills up before the update has finished. The value of a successful
+ * update is the up-to-date list of media files, which replaces the batches.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see App#updateMedia(ScanListener)
+ * @since 18.10.2026
+ */
+public class LibraryService extends Service<ArrayList<Media>> {
+    private static final int BATCH_SIZE = 256;          // Maximum number of media files passed on at once
+    private static final long BATCH_INTERVAL = 100;     // Milliseconds between batches while media files keep being found
+
+    private final Consumer<List<Media>> onBatch;
+
+    /**
+     * Sole constructor.
+     *
+     * @param onBatch receives batches of media files as they are found, called on the {@code JavaFX} application thread
+     */
+    public LibraryService(Consumer<List<Media>> onBatch) {
+        this.onBatch = onBatch;
+    }
+
+    /**
+     * Starts an update unless one is already running. Must be called on the {@code JavaFX} application thread.
+     *
+     * @return {@code true} if an update was started
+     */
+    public boolean load() {
+        if (isRunning()) {
+            return false;
+        }
+
+        restart();
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Task<ArrayList<Media>> createTask() {
+        return new Task<>() {
+            private List<Media> batch = new ArrayList<>();
+            private long published = System.currentTimeMillis();
+
+            @Override
+            protected ArrayList<Media> call() {
+                return App.updateMedia(new ScanListener() {
+                    @Override
+                    public void found(Media media) {
+                        batch.add(media);
+
+                        if (batch.size() >= BATCH_SIZE || System.currentTimeMillis() - published >= BATCH_INTERVAL) {
+                            publish();
+                        }
+                    }
+
+                    @Override
+                    public void progress(int done, int total) {
+                        updateProgress(done, total);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return isTaskCancelled();
+                    }
+                });
+            }
+
+            private boolean isTaskCancelled() {
+                return isCancelled();
+            }
+
+            /**
+             * Passes the media files found since the last batch to the {@code JavaFX} application thread.
+             */
+            private void publish() {
+                List<Media> media = batch;
+
+                batch = new ArrayList<>();
+                published = System.currentTimeMillis();
+
+                Platform.runLater(() -> {
+                    if (!isCancelled()) {
+                        onBatch.accept(media);
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,259 @@
+package spaget;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the {@link LibraryCatalog}, so the library can be shown as soon as the application starts instead of after the database has been read and the library folders scanned.
+ * <p>
+ * The file is read through a memory-mapped {@code FileChannel}. It starts with a magic number and a format version, followed by the artists, which are stored once each, and the media files. A
+ * {@code CRC-32} checksum of everything before it ends the file, so a snapshot that is outdated, truncated, or corrupt is ignored. Once {@link #attach(LibraryCatalog) attached} to a catalog the
+ * snapshot is written in the background a short while after the catalog changes.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class LibrarySnapshot implements AutoCloseable {
+    private static final int MAGIC = 0x53504c53;  // "SPLS"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final long delay;
+    private final ScheduledExecutorService writer;
+
+    private LibraryCatalog catalog;
+    private ScheduledFuture<?> pendingWrite;
+    private boolean dirty;
+
+    /**
+     * Sole constructor.
+     *
+     * @param file  path of the snapshot file
+     * @param delay milliseconds to wait for further changes to the catalog before the snapshot is written
+     */
+    public LibrarySnapshot(Path file, long delay) {
+        this.file = file;
+        this.delay = delay;
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-snapshot");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the snapshot file. A missing, outdated, or corrupt file results in an empty list.
+     *
+     * @return media files of the snapshot, in the order of the catalog
+     */
+    public List<Media> read() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size < 24 || size > Integer.MAX_VALUE) {
+                return new ArrayList<>();
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            /* Compare the checksum before anything else is read */
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - Long.BYTES));
+
+            if (buffer.getLong((int) size - Long.BYTES) != crc.getValue() || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return new ArrayList<>();
+            }
+
+            int count = buffer.getInt();
+            String[] artists = new String[buffer.getInt()];
+            byte[] scratch = new byte[1024]; // Reused for every string that fits in it
+
+            for (int i = 0; i < artists.length; i++) {
+                artists[i] = readString(buffer, scratch);
+            }
+
+            ArrayList<Media> media = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                String path = readString(buffer, scratch);
+                String title = readString(buffer, scratch);
+
+                media.add(new Media(path, title, artists[buffer.getInt()], buffer.getInt()));
+            }
+
+            return media;
+        } catch (NoSuchFileException e) {
+            // First start, the library hasn't been saved yet
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            System.err.println("Library snapshot is unreadable and will be rebuilt: " + e.getMessage());
+        }
+
+        return new ArrayList<>();
+    }
+
+    private static String readString(MappedByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+
+        buffer.get(bytes, 0, length);
+
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the {@code media} to the snapshot file, replacing the previous snapshot.
+     *
+     * @param media every media file of the library
+     * @return {@code true} if the file was written
+     */
+    public boolean write(Collection<Media> media) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp"); // Written first so a crash never leaves a half written snapshot
+
+        Map<String, Integer> artists = new HashMap<>();
+        List<String> artistList = new ArrayList<>();
+
+        for (Media m : media) {
+            if (artists.putIfAbsent(m.getArtist(), artists.size()) == null) {
+                artistList.add(m.getArtist());
+            }
+        }
+
+        CheckedOutputStream checked;
+
+        try (DataOutputStream out = new DataOutputStream(checked = new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16), new CRC32()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(media.size());
+            out.writeInt(artistList.size());
+
+            for (String artist : artistList) {
+                writeString(out, artist);
+            }
+
+            for (Media m : media) {
+                writeString(out, m.getPath());
+                writeString(out, m.getTitle());
+                out.writeInt(artists.get(m.getArtist()));
+                out.writeInt(m.getLength());
+            }
+
+            out.writeLong(checked.getChecksum().getValue());
+        } catch (IOException e) {
+            System.err.println("Library snapshot couldn't be written: " + e.getMessage());
+
+            return false;
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Library snapshot couldn't be written: " + e.getMessage());
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the snapshot whenever the {@code catalog} has changed, once it hasn't changed for the delay given to the constructor.
+     *
+     * @param catalog catalog of the library
+     */
+    public synchronized void attach(LibraryCatalog catalog) {
+        this.catalog = catalog;
+
+        catalog.addListener(delta -> scheduleWrite());
+    }
+
+    private synchronized void scheduleWrite() {
+        dirty = true;
+
+        if (writer.isShutdown()) {
+            return; // The snapshot has been closed
+        }
+
+        if (pendingWrite != null) {
+            pendingWrite.cancel(false);
+        }
+
+        pendingWrite = writer.schedule(this::save, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the attached catalog if it has changed since it was last written.
+     */
+    private void save() {
+        LibraryCatalog current;
+
+        synchronized (this) {
+            if (!dirty || catalog == null) {
+                return;
+            }
+
+            current = catalog;
+            dirty = false;
+            pendingWrite = null;
+        }
+
+        if (!write(current.getAll())) {
+            synchronized (this) {
+                dirty = true; // Tried again after the next change or when the snapshot is closed
+            }
+        }
+    }
+
+    /**
+     * Writes any changes that haven't been written yet and stops the background thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+            }
+        }
+
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS); // A write that has already started is allowed to finish
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        save();
+    }
+}
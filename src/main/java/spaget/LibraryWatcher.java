@@ -0,0 +1,198 @@
+package spaget;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a library folder and its subfolders for created, modified, and deleted files.
+ * <p>
+ * Events are coalesced into a set of changed paths, which is passed on once no new events have arrived for the debounce delay, or at the latest after the maximum delay while files keep changing.
+ * Copying an album into the folder is therefore reported as one change. If the {@code WatchService} loses events ({@code OVERFLOW}) a full rescan is requested instead.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class LibraryWatcher implements AutoCloseable {
+    private final Path root;
+    private final long debounce;
+    private final long maxDelay;
+    private final Consumer<Set<Path>> onChange;
+    private final Runnable onOverflow;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>(); // Watched directories by their key
+    private final Thread thread;
+
+    /**
+     * Registers the {@code root} and its subfolders and starts watching them on a daemon thread.
+     *
+     * @param root       library folder to be watched
+     * @param debounce   milliseconds without new events before the changes are passed on
+     * @param maxDelay   maximum milliseconds changes are held back while events keep arriving
+     * @param onChange   receives the paths of the changed files and folders, called on the watcher thread
+     * @param onOverflow called on the watcher thread when events have been lost and the library must be rescanned
+     * @throws IOException if the folder couldn't be watched
+     */
+    public LibraryWatcher(Path root, long debounce, long maxDelay, Consumer<Set<Path>> onChange, Runnable onOverflow) throws IOException {
+        this.root = root;
+        this.debounce = debounce;
+        this.maxDelay = maxDelay;
+        this.onChange = onChange;
+        this.onOverflow = onOverflow;
+
+        watchService = FileSystems.getDefault().newWatchService();
+
+        register(root, null);
+
+        thread = new Thread(this::watch, "spaget-library-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Registers a folder and all of its subfolders.
+     *
+     * @param directory folder to be registered
+     * @param created   if not {@code null}, receives the files already inside folders that were created after the watcher started
+     */
+    private void register(Path directory, Set<Path> created) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (created != null) {
+                    created.add(file);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.err.println(e.getMessage()); // An unreadable folder is skipped instead of stopping the watcher
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Collects events until the changes have settled and passes them on.
+     */
+    private void watch() {
+        Set<Path> changes = new LinkedHashSet<>();
+        long firstChange = 0;   // Time of the oldest change that hasn't been passed on
+        boolean overflow = false;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = changes.isEmpty() && !overflow ? watchService.take() : watchService.poll(debounce, TimeUnit.MILLISECONDS);
+
+                if (key != null) {
+                    if (changes.isEmpty()) {
+                        firstChange = System.currentTimeMillis();
+                    }
+
+                    overflow |= collect(key, changes);
+                }
+
+                boolean settled = key == null || System.currentTimeMillis() - firstChange >= maxDelay;
+
+                if (settled && overflow) {
+                    changes.clear();
+                    overflow = false;
+
+                    onOverflow.run();
+                } else if (settled && !changes.isEmpty()) {
+                    Set<Path> delta = changes;
+                    changes = new LinkedHashSet<>();
+
+                    onChange.accept(delta);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher has been closed
+        }
+    }
+
+    /**
+     * Adds the paths of a key's pending events to {@code changes} and registers new folders.
+     *
+     * @return {@code true} if events have been lost
+     */
+    private boolean collect(WatchKey key, Set<Path> changes) {
+        Path directory = directories.get(key);
+        boolean overflow = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                overflow = true;
+
+                continue;
+            }
+
+            Path path = directory.resolve((Path) event.context());
+
+            changes.add(path);
+
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    register(path, changes);
+                } catch (IOException e) {
+                    System.err.println(e.getMessage());
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key); // The folder has been deleted
+        }
+
+        return overflow;
+    }
+
+    /**
+     * @return the watched library folder
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Stops watching the library folder.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package spaget;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 /**
  * Models a media file.
  *
@@ -11,8 +14,8 @@ public class Media {
     private final String path;
     private final String title;
     private final String artist;
-    private final String duration;
     private final int length;
+    private String duration; // Formatted the first time it's shown, since most media files of a large library never are
 
     /**
      * Sole constructor.
@@ -27,8 +30,35 @@ public class Media {
         this.title = title;
         this.artist = artist;
         this.length = length;
+    }
 
-        duration = formatSeconds(length);
+    /**
+     * Maps a row of {@code fldPath, fldTitle, fldArtist, fldLength} to a {@code Media}.
+     * <p>
+     * A {@code NULL} {@code fldTitle} or {@code fldArtist} is mapped to an empty {@code String} instead of {@code null}.
+     *
+     * @param rs result set positioned at the row to map
+     * @return {@code Media} representing the row
+     * @throws SQLException if a column couldn't be read
+     * @see RowMapper
+     */
+    static Media map(ResultSet rs) throws SQLException {
+        return map(rs, 1);
+    }
+
+    /**
+     * Maps the columns {@code fldPath, fldTitle, fldArtist, fldLength} starting at {@code column} to a {@code Media}.
+     *
+     * @param rs     result set positioned at the row to map
+     * @param column index of the {@code fldPath} column
+     * @return {@code Media} representing the row
+     * @throws SQLException if a column couldn't be read
+     */
+    static Media map(ResultSet rs, int column) throws SQLException {
+        String title = rs.getString(column + 1);
+        String artist = rs.getString(column + 2);
+
+        return new Media(rs.getString(column).trim(), title == null ? "" : title.trim(), artist == null ? "" : artist.trim(), rs.getInt(column + 3));
     }
 
     public String getPath() {
@@ -52,6 +82,10 @@ public class Media {
     }
 
     public String getDuration() {
+        if (duration == null) {
+            duration = formatSeconds(length);
+        }
+
         return duration;
     }
 
@@ -66,11 +100,7 @@ public class Media {
      * @return formatted {@code String}
      */
     static String formatSeconds(int totalSeconds) {
-        int hours = totalSeconds / 3600;
-        int minutes = (totalSeconds % 3600) / 60;
-        int seconds = totalSeconds % 60;
-
-        return String.format("%02d:%02d:%02d", hours, minutes, seconds);
+        return TimeFormatter.formatSeconds(totalSeconds);
     }
 
     /**
@@ -86,6 +116,24 @@ public class Media {
         return path.equals(media.path);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    /**
+     * Compares the metadata of two {@code Media} objects, which are equal as soon as their paths are equal.
+     *
+     * @param media {@code Media} to compare with
+     * @return {@code true} if the title, artist, and length are the same
+     */
+    public boolean hasSameMetadata(Media media) {
+        return title.equals(media.title) && artist.equals(media.artist) && length == media.length;
+    }
+
     /**
      * {@inheritDoc}
      */
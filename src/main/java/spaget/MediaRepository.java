@@ -0,0 +1,60 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the media files of the library.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories#media()
+ * @since 18.10.2026
+ */
+public interface MediaRepository {
+
+    /**
+     * @return every stored media file
+     */
+    ArrayList<Media> findAll();
+
+    /**
+     * Stores changes to the library in a single transaction. Added media files are inserted, updated media files have their title, artist, and length replaced, and removed media files are
+     * deleted.
+     *
+     * @param delta changes to be stored
+     * @return {@code true} if every change was stored
+     */
+    boolean apply(LibraryDelta delta);
+
+    /**
+     * @param filter text the title or artist must start with, ignoring case, or an empty {@code String} to count every media file
+     * @return number of stored media files matching the filter
+     */
+    int count(String filter);
+
+    /**
+     * Reads the page of media files that follows a media file of the previous page (keyset pagination), so the page is found by seeking in the sort order instead of skipping the rows before it.
+     *
+     * @param sort       column the media files are sorted by
+     * @param descending whether the media files are sorted in descending order
+     * @param filter     text the title or artist must start with, ignoring case, or an empty {@code String} to read every media file
+     * @param after      last media file of the previous page, or {@code null} for the first page
+     * @param limit      maximum number of media files to be read
+     * @return media files of the page, in order
+     */
+    List<Media> findPage(MediaSort sort, boolean descending, String filter, Media after, int limit);
+
+    /**
+     * Reads the page of media files at a position, used when the page before it hasn't been read, e.g. when the user jumps to the middle of the library.
+     *
+     * @param sort       column the media files are sorted by
+     * @param descending whether the media files are sorted in descending order
+     * @param filter     text the title or artist must start with, ignoring case, or an empty {@code String} to read every media file
+     * @param offset     number of media files before the page
+     * @param limit      maximum number of media files to be read
+     * @return media files of the page, in order
+     * @see #findPage(MediaSort, boolean, String, Media, int)
+     */
+    List<Media> findPage(MediaSort sort, boolean descending, String filter, int offset, int limit);
+}
@@ -0,0 +1,57 @@
+package spaget;
+
+import java.util.Comparator;
+
+/**
+ * Column a page of media files is sorted by, see {@link MediaRepository#findPage(MediaSort, boolean, String, Media, int)}.
+ * <p>
+ * Media files with the same value are sorted by path, which is unique, so every media file has a distinct position that a page can continue after.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public enum MediaSort {
+    TITLE("fldTitle", Comparator.comparing(Media::getTitle, String.CASE_INSENSITIVE_ORDER)),
+    ARTIST("fldArtist", Comparator.comparing(Media::getArtist, String.CASE_INSENSITIVE_ORDER)),
+    LENGTH("fldLength", Comparator.comparingInt(Media::getLength));
+
+    private final String column;
+    private final Comparator<Media> comparator;
+
+    MediaSort(String column, Comparator<Media> comparator) {
+        this.column = column;
+        this.comparator = comparator.thenComparing(media -> media.getPath());
+    }
+
+    /**
+     * The column is compared and sorted as it is, so an index on the column and {@code fldPath} can be used. It must not hold {@code NULL}, which {@link SqlServerStore} never writes.
+     *
+     * @return sql name of the column
+     */
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return comparator sorting media files in the same order as the column, followed by their path
+     */
+    Comparator<Media> getComparator() {
+        return comparator;
+    }
+
+    /**
+     * @param media media file
+     * @return the media file's value of the column
+     */
+    Object getValue(Media media) {
+        switch (this) {
+            case ARTIST:
+                return media.getArtist();
+            case LENGTH:
+                return media.getLength();
+            default:
+                return media.getTitle();
+        }
+    }
+}
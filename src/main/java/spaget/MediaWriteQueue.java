@@ -0,0 +1,310 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes the changes to the library to the store on a single background thread, so whoever changes the library doesn't wait for the store.
+ * <p>
+ * Changes are queued by the path of the media file, so only the last change to a media file is written: a media file that is added and removed again before it's written is never written, and a
+ * media file updated several times is updated once. The queue is written as one {@link MediaRepository#apply(LibraryDelta) transaction} a short while after the first change was queued, or as
+ * soon as it holds a full batch. A caller that queues changes while the queue is full waits until the writer has taken it. Reads wait for the queued changes to be written, so they always see
+ * them, and {@link #close()} writes whatever is still queued before the application exits.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories#media()
+ * @since 18.10.2026
+ */
+public class MediaWriteQueue implements MediaRepository, AutoCloseable {
+    private final MediaRepository store;
+    private final long delay;
+    private final int batchSize;
+    private final int capacity;
+    private final Thread writer;
+
+    private Map<String, Change> pending = new LinkedHashMap<>();          // Last change to each media file by path, in the order the media files were first changed
+    private List<CompletableFuture<Boolean>> waiting = new ArrayList<>(); // Completed when the pending changes have been written
+    private long firstQueued;   // Value of System.nanoTime() when the oldest pending change was queued
+    private boolean writing;    // Whether the writer is writing changes it has taken
+    private boolean flushing;   // Whether the pending changes should be written without waiting
+    private boolean closed;
+
+    /**
+     * Starts the writer, which waits for changes to be {@link #submit(LibraryDelta) submitted}.
+     *
+     * @param store     stores the media files
+     * @param delay     milliseconds to wait for further changes before they are written
+     * @param batchSize number of queued media files that are written without waiting
+     * @param capacity  number of queued media files at which callers wait for the writer
+     */
+    public MediaWriteQueue(MediaRepository store, long delay, int batchSize, int capacity) {
+        this.store = store;
+        this.delay = delay;
+        this.batchSize = Math.max(1, batchSize);
+        this.capacity = Math.max(this.batchSize, capacity);
+
+        writer = new Thread(this::write, "spaget-db-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues changes to the library to be written in the background. If the queue is full the caller waits until the writer has taken it, unless the queue is empty, so the changes of one
+     * update are never split up.
+     *
+     * @param delta changes to be stored
+     * @return completed with {@code true} once the changes have been written, or {@code false} if they couldn't be stored
+     */
+    public synchronized CompletableFuture<Boolean> submit(LibraryDelta delta) {
+        CompletableFuture<Boolean> written = new CompletableFuture<>();
+
+        if (delta.isEmpty()) {
+            written.complete(true);
+
+            return written;
+        }
+
+        int size = delta.getAdded().size() + delta.getUpdated().size() + delta.getRemoved().size();
+
+        try {
+            while (!pending.isEmpty() && pending.size() + size > capacity && !closed) {
+                wait(); // Back-pressure until the writer has taken the queue
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (closed || !writer.isAlive()) {
+            written.complete(store.apply(delta)); // Written by the caller once the writer has stopped
+
+            return written;
+        }
+
+        if (pending.isEmpty()) {
+            firstQueued = System.nanoTime();
+        }
+
+        for (Media media : delta.getRemoved()) {
+            queue(Change.Type.DELETE, media);
+        }
+
+        for (Media media : delta.getAdded()) {
+            queue(Change.Type.INSERT, media);
+        }
+
+        for (Media media : delta.getUpdated()) {
+            queue(Change.Type.UPDATE, media);
+        }
+
+        waiting.add(written);
+        notifyAll();
+
+        return written;
+    }
+
+    /**
+     * Merges a change with the pending change to the same media file. Called while holding the lock.
+     */
+    private void queue(Change.Type type, Media media) {
+        Change last = pending.get(media.getPath());
+
+        if (last == null) {
+            pending.put(media.getPath(), new Change(type, media));
+
+            return;
+        }
+
+        switch (type) {
+            case DELETE:
+                if (last.type == Change.Type.INSERT) {
+                    pending.remove(media.getPath()); // Never written, so there's nothing to delete
+                } else {
+                    pending.put(media.getPath(), new Change(Change.Type.DELETE, media));
+                }
+
+                break;
+            case INSERT:
+                pending.put(media.getPath(), new Change(last.type == Change.Type.UPDATE ? Change.Type.UPDATE : last.type == Change.Type.INSERT ? Change.Type.INSERT : Change.Type.REPLACE,
+                        media));
+
+                break;
+            default:
+                if (last.type != Change.Type.DELETE) {
+                    pending.put(media.getPath(), new Change(last.type, media)); // Written once with the latest metadata
+                } // An update of a deleted media file has no effect
+        }
+    }
+
+    /**
+     * Takes the queue once it's due and writes it, until the queue is closed and empty.
+     */
+    private void write() {
+        while (true) {
+            Map<String, Change> changes;
+            List<CompletableFuture<Boolean>> written;
+
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && waiting.isEmpty() && !closed) {
+                        wait();
+                    }
+
+                    long remaining;
+
+                    while (!closed && !flushing && pending.size() < batchSize && (remaining = delay - (System.nanoTime() - firstQueued) / 1_000_000) > 0) {
+                        wait(remaining); // Waits for further changes to be merged with the queued ones
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // The queue is written as it is
+                }
+
+                if (pending.isEmpty() && waiting.isEmpty()) {
+                    flushing = false;
+                    notifyAll();
+
+                    return; // Closed
+                }
+
+                changes = pending;
+                written = waiting;
+                pending = new LinkedHashMap<>();
+                waiting = new ArrayList<>();
+                writing = true;
+                notifyAll(); // Callers waiting for space can queue changes while these are written
+            }
+
+            LibraryDelta delta = new LibraryDelta();
+
+            for (Change change : changes.values()) {
+                if (change.type == Change.Type.DELETE || change.type == Change.Type.REPLACE) {
+                    delta.getRemoved().add(change.media); // Removed media files are deleted before the added ones are inserted
+                }
+
+                if (change.type == Change.Type.INSERT || change.type == Change.Type.REPLACE) {
+                    delta.getAdded().add(change.media);
+                } else if (change.type == Change.Type.UPDATE) {
+                    delta.getUpdated().add(change.media);
+                }
+            }
+
+            boolean stored = delta.isEmpty() || store.apply(delta);
+
+            if (!stored) {
+                System.err.println("Couldn't store changes to the library, they are stored the next time the library is updated: " + delta);
+            }
+
+            written.forEach(future -> future.complete(stored));
+
+            synchronized (this) {
+                writing = false;
+
+                if (pending.isEmpty()) {
+                    flushing = false;
+                }
+
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes the queued changes without waiting for further changes, and waits until they have been written.
+     */
+    public synchronized void flush() {
+        if (!writer.isAlive() || pending.isEmpty() && waiting.isEmpty() && !writing) {
+            return; // Nothing to write, so changes queued later still wait for further changes
+        }
+
+        flushing = true;
+        notifyAll();
+
+        try {
+            while ((!pending.isEmpty() || !waiting.isEmpty() || writing) && writer.isAlive()) {
+                wait(100); // The writer may stop without notifying if it dies
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the queued changes and stops the writer, waiting until it has finished.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* Reads, which see the queued changes */
+
+    @Override
+    public ArrayList<Media> findAll() {
+        flush();
+
+        return store.findAll();
+    }
+
+    /**
+     * Queues the changes and waits until they have been written.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean apply(LibraryDelta delta) {
+        return submit(delta).join();
+    }
+
+    @Override
+    public int count(String filter) {
+        flush();
+
+        return store.count(filter);
+    }
+
+    @Override
+    public List<Media> findPage(MediaSort sort, boolean descending, String filter, Media after, int limit) {
+        flush();
+
+        return store.findPage(sort, descending, filter, after, limit);
+    }
+
+    @Override
+    public List<Media> findPage(MediaSort sort, boolean descending, String filter, int offset, int limit) {
+        flush();
+
+        return store.findPage(sort, descending, filter, offset, limit);
+    }
+
+    /**
+     * Last change to a media file that hasn't been written yet.
+     */
+    private static class Change {
+        private final Type type;
+        private final Media media;
+
+        private Change(Type type, Media media) {
+            this.type = type;
+            this.media = media;
+        }
+
+        private enum Type {
+            INSERT,
+            UPDATE,
+            DELETE,
+            REPLACE // Deleted and inserted again
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package spaget;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runtime metrics of the database, the library scanner, and playback.
+ * <p>
+ * The metrics are always counted, with lock-free counters on the hot paths, and are published as {@code MXBeans} under the {@code spaget} domain once {@link #start(long)} has been called, so they
+ * can be watched with e.g. {@code JConsole} or {@code VisualVM}. They can also be printed every number of seconds.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public final class Metrics {
+    private static final long TICK = 1000; // Milliseconds between two calculations of the rates
+
+    private static final DatabaseMetrics database = new DatabaseMetrics();
+    private static final ScannerMetrics scanner = new ScannerMetrics();
+    private static final PlaybackMetrics playback = new PlaybackMetrics();
+
+    private static ScheduledExecutorService ticker;
+
+    private Metrics() {
+    }
+
+    /**
+     * Publishes the metrics through {@code JMX} and starts calculating the rates. Calling it more than once has no effect.
+     *
+     * @param logInterval seconds between printing every metric, or {@code 0} to not print them
+     */
+    public static synchronized void start(long logInterval) {
+        if (ticker != null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.registerMBean(database, new ObjectName("spaget:type=Database"));
+            server.registerMBean(scanner, new ObjectName("spaget:type=Scanner"));
+            server.registerMBean(playback, new ObjectName("spaget:type=Playback"));
+        } catch (Exception e) {
+            System.err.println("Metrics couldn't be published: " + e.getMessage());
+        }
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-metrics");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        ticker.scheduleAtFixedRate(() -> database.tick(TICK / 1000.0), TICK, TICK, TimeUnit.MILLISECONDS);
+
+        if (logInterval > 0) {
+            ticker.scheduleAtFixedRate(Metrics::print, logInterval, logInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Prints every metric.
+     */
+    public static void print() {
+        System.out.println("Metrics: " + database);
+        System.out.println("Metrics: " + scanner);
+        System.out.println("Metrics: " + playback);
+    }
+
+    /**
+     * Stops calculating the rates and printing the metrics, which are still counted.
+     */
+    public static synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public static DatabaseMetrics database() {
+        return database;
+    }
+
+    public static ScannerMetrics scanner() {
+        return scanner;
+    }
+
+    public static PlaybackMetrics playback() {
+        return playback;
+    }
+}
@@ -0,0 +1,242 @@
+package spaget;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read-only list of the stored media files, read from a {@link MediaRepository} a page at a time as the rows are shown.
+ * <p>
+ * A {@code TableView} only asks for the rows it shows, so only the pages around them are read. Pages are read in the background with keyset pagination, continuing after the last media file of
+ * the page before, and by position when the user jumps past pages that haven't been read. A row whose page is still being read is {@code null} until the page arrives. At most a bounded number of
+ * pages is kept, and the pages next to the one that is shown are read ahead. Sorting and filtering are done by the repository.
+ * <p>
+ * Every method must be called on the {@code JavaFX} application thread.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class PagedMediaList extends ObservableListBase<Media> {
+    private final MediaRepository repository;
+    private final int pageSize;
+    private final int maxPages;
+    private final ExecutorService loader;
+
+    private final Map<Integer, List<Media>> pages = new HashMap<>(); // Pages that have been read
+    private final Map<Integer, Media> pageEnds = new HashMap<>();    // Last media file of each page that has been read, which the next page continues after
+    private final Set<Integer> loading = new HashSet<>();            // Pages that are being read
+
+    private MediaSort sort = MediaSort.TITLE;
+    private boolean descending;
+    private String filter = "";
+    private int size;
+    private volatile int generation;  // Increased whenever the rows change, so pages read for earlier rows are dropped
+    private volatile int lastPage;    // Page of the last row that was asked for
+
+    /**
+     * Sole constructor. The list is empty until it's {@link #refresh() refreshed}.
+     *
+     * @param repository repository the media files are read from
+     * @param pageSize   number of media files read at a time
+     * @param maxPages   maximum number of pages kept in memory, including those read ahead
+     */
+    public PagedMediaList(MediaRepository repository, int pageSize, int maxPages) {
+        this.repository = repository;
+        this.pageSize = pageSize;
+        this.maxPages = Math.max(maxPages, 3); // The page that is shown and the pages on either side of it
+
+        loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-library-pager");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * @param index index of the row
+     * @return the media file of the row, or {@code null} if its page hasn't been read yet
+     */
+    @Override
+    public Media get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        int page = index / pageSize;
+        List<Media> rows = pages.get(page);
+
+        lastPage = page;
+
+        /* Read the page if needed, and the pages on either side of it ahead of time */
+
+        request(page);
+        request(page + 1);
+        request(page - 1);
+
+        return rows != null && index % pageSize < rows.size() ? rows.get(index % pageSize) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sorts the media files by a column.
+     *
+     * @param sort       column the media files are sorted by
+     * @param descending whether they're sorted in descending order
+     */
+    public void setOrder(MediaSort sort, boolean descending) {
+        if (this.sort != sort || this.descending != descending) {
+            this.sort = sort;
+            this.descending = descending;
+
+            refresh();
+        }
+    }
+
+    /**
+     * Only shows the media files whose title or artist starts with a text, ignoring case.
+     *
+     * @param filter text to filter by, or an empty {@code String} to show every media file
+     */
+    public void setFilter(String filter) {
+        if (!this.filter.equals(filter)) {
+            this.filter = filter;
+
+            refresh();
+        }
+    }
+
+    /**
+     * Drops every page and reads the number of media files again, e.g. after the stored media files have changed. The rows that are shown are read again when the table asks for them.
+     */
+    public void refresh() {
+        int current = ++generation;
+        String filter = this.filter;
+
+        pages.clear();
+        pageEnds.clear();
+        loading.clear();
+
+        loader.execute(() -> {
+            int count = repository.count(filter);
+
+            Platform.runLater(() -> {
+                if (current == generation) {
+                    resize(count);
+                }
+            });
+        });
+    }
+
+    /**
+     * Replaces every row, since the rows after a change to the order or filter have nothing in common with those before.
+     */
+    private void resize(int count) {
+        int old = size;
+        size = count;
+
+        beginChange();
+        nextRemove(0, Collections.nCopies(old, null)); // The removed rows aren't kept, which a table doesn't need
+        nextAdd(0, count);
+        endChange();
+    }
+
+    /**
+     * Reads a page in the background unless it has been read, is being read, or doesn't exist.
+     */
+    private void request(int page) {
+        if (page < 0 || page * pageSize >= size || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+
+        int current = generation;
+        MediaSort sort = this.sort;
+        boolean descending = this.descending;
+        String filter = this.filter;
+        Media after = page == 0 ? null : pageEnds.get(page - 1);
+
+        loader.execute(() -> {
+            if (current != generation || Math.abs(page - lastPage) > maxPages / 2) {
+                Platform.runLater(() -> loading.remove(page)); // Scrolled past it, read again if it's shown after all
+
+                return;
+            }
+
+            List<Media> rows = page == 0 || after != null
+                    ? repository.findPage(sort, descending, filter, after, pageSize)
+                    : repository.findPage(sort, descending, filter, page * pageSize, pageSize);
+
+            Platform.runLater(() -> loaded(current, page, rows));
+        });
+    }
+
+    private void loaded(int current, int page, List<Media> rows) {
+        if (current != generation) {
+            return;
+        }
+
+        loading.remove(page);
+        pages.put(page, rows);
+
+        if (!rows.isEmpty()) {
+            pageEnds.put(page, rows.get(rows.size() - 1));
+        }
+
+        /* Keep the pages closest to the one that is shown */
+
+        while (pages.size() > maxPages) {
+            Integer farthest = null;
+
+            for (Integer key : pages.keySet()) {
+                if (farthest == null || Math.abs(key - lastPage) > Math.abs(farthest - lastPage)) {
+                    farthest = key;
+                }
+            }
+
+            pages.remove(farthest);
+            pageEnds.remove(farthest); // The page after it is read by position if it's needed again
+        }
+
+        /* Show the rows of the page */
+
+        int from = page * pageSize;
+        int to = Math.min(size, from + rows.size());
+
+        if (from < to) {
+            beginChange();
+
+            for (int i = from; i < to; i++) {
+                nextUpdate(i);
+            }
+
+            endChange();
+        }
+    }
+
+    /**
+     * @return number of pages kept in memory
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Stops reading pages.
+     */
+    public void close() {
+        loader.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package spaget;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times the opening of media files by the {@link GaplessPlayer} and counts the updates of the {@link TransportUpdater}.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Metrics#playback()
+ * @since 18.10.2026
+ */
+public class PlaybackMetrics implements PlaybackMetricsMXBean {
+    private final LatencyHistogram timeToReady = new LatencyHistogram();
+    private final LatencyHistogram gaps = new LatencyHistogram();
+    private final LongAdder uiUpdates = new LongAdder();
+    private final LongAdder droppedUiUpdates = new LongAdder();
+
+    /**
+     * @param start value of {@code System.nanoTime()} when the media file was played
+     */
+    void recordReady(long start) {
+        timeToReady.recordSince(start);
+    }
+
+    /**
+     * @param nanos nanoseconds from the end of a media file until the next one was playing
+     */
+    void recordGap(long nanos) {
+        gaps.record(nanos);
+    }
+
+    /**
+     * @param dropped number of updates missed since the last one
+     */
+    void recordUiUpdate(long dropped) {
+        uiUpdates.increment();
+
+        if (dropped > 0) {
+            droppedUiUpdates.add(dropped);
+        }
+    }
+
+    @Override
+    public LatencyHistogram getTimeToReady() {
+        return timeToReady;
+    }
+
+    @Override
+    public LatencyHistogram getGaps() {
+        return gaps;
+    }
+
+    @Override
+    public long getUiUpdates() {
+        return uiUpdates.sum();
+    }
+
+    @Override
+    public long getDroppedUiUpdates() {
+        return droppedUiUpdates.sum();
+    }
+
+    @Override
+    public void reset() {
+        timeToReady.reset();
+        gaps.reset();
+        uiUpdates.reset();
+        droppedUiUpdates.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "Playback[time to ready (" + timeToReady + "), gaps (" + gaps + "), updates=" + getUiUpdates() + ", dropped=" + getDroppedUiUpdates() + "]";
+    }
+}
@@ -0,0 +1,37 @@
+package spaget;
+
+/**
+ * Latencies of opening media files and counts of the updates of the transport, readable through {@code JMX} as {@code spaget:type=Playback}.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see PlaybackMetrics
+ * @since 18.10.2026
+ */
+public interface PlaybackMetricsMXBean {
+
+    /**
+     * @return time from a media file being played until its player was ready
+     */
+    LatencyHistogram getTimeToReady();
+
+    /**
+     * @return time from the end of a media file of a playlist until the next one was playing
+     */
+    LatencyHistogram getGaps();
+
+    /**
+     * @return number of times the current time and seek slider were updated
+     */
+    long getUiUpdates();
+
+    /**
+     * @return number of updates of the current time and seek slider that were missed because the application thread was busy
+     */
+    long getDroppedUiUpdates();
+
+    /**
+     * Sets every counter and latency to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,130 @@
+package spaget;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single media file opened in a {@code MediaPlayer}, together with every listener that was added for it.
+ * <p>
+ * Listeners are added through {@link #listen(ObservableValue, ChangeListener)}, so they can all be removed again by {@link #unbind()} when the session is no longer shown, and by {@link #close()},
+ * which also disposes the player. A closed session holds no references to the user interface and no native resources. The number of open sessions and of listeners added by them are counted, so a
+ * leak shows up as counts that keep growing as media files are played.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see GaplessPlayer
+ * @since 18.10.2026
+ */
+public class PlaybackSession implements AutoCloseable {
+    private static final AtomicInteger activeSessions = new AtomicInteger();
+    private static final AtomicInteger activeListeners = new AtomicInteger();
+
+    private final String path;
+    private final Media media;
+    private final MediaPlayer player;
+    private final List<Runnable> bindings = new ArrayList<>(); // Removes each listener that has been added
+    private boolean closed;
+
+    /**
+     * Opens a media file. The player starts loading the file right away, but doesn't play it until it's told to.
+     *
+     * @param path absolute path of the media file
+     */
+    public PlaybackSession(String path) {
+        this.path = path;
+
+        media = new Media(Paths.get(path).toUri().toString());
+        player = new MediaPlayer(media);
+
+        activeSessions.incrementAndGet();
+    }
+
+    /**
+     * Adds a listener that is removed when the session is unbound or closed.
+     *
+     * @param value    value to be observed, e.g. a property of the player or of a control
+     * @param listener listener to be added
+     * @param <T>      type of the value
+     */
+    public <T> void listen(ObservableValue<T> value, ChangeListener<? super T> listener) {
+        if (closed) {
+            return;
+        }
+
+        value.addListener(listener);
+        activeListeners.incrementAndGet();
+
+        bindings.add(() -> {
+            value.removeListener(listener);
+            activeListeners.decrementAndGet();
+        });
+    }
+
+    /**
+     * Removes every listener added through the session and the player's event handlers, while the player keeps playing.
+     */
+    public void unbind() {
+        for (Runnable binding : bindings) {
+            binding.run();
+        }
+
+        bindings.clear();
+
+        player.setOnReady(null);
+        player.setOnEndOfMedia(null);
+        player.setOnError(null);
+    }
+
+    /**
+     * Removes every listener and disposes the player. Closing a session more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        unbind();
+        player.dispose();
+
+        closed = true;
+        activeSessions.decrementAndGet();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Media getMedia() {
+        return media;
+    }
+
+    public MediaPlayer getPlayer() {
+        return player;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return number of sessions that haven't been closed
+     */
+    public static int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * @return number of listeners added by sessions that haven't been removed
+     */
+    public static int getActiveListeners() {
+        return activeListeners.get();
+    }
+}
@@ -1,9 +1,20 @@
 package spaget;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.effect.GaussianBlur;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseButton;
@@ -15,10 +26,15 @@ import javafx.scene.media.MediaView;
 import javafx.stage.Stage;
 import org.kordamp.ikonli.javafx.FontIcon;
 
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import static javafx.scene.media.MediaPlayer.Status.PLAYING;
 
@@ -30,8 +46,50 @@ import static javafx.scene.media.MediaPlayer.Status.PLAYING;
  * @since 04.01.2021
  */
 public class PlayerController {
+    private static final long SEARCH_DEBOUNCE = 150;    // Milliseconds to wait for the next keystroke before searching
+    private static final long PAGED_REFRESH_DELAY = 500; // Milliseconds without changes to the library before a paged library table is read again
+    private static final int LIBRARY_PAGE_SIZE = 200;    // Rows read at a time by a paged library table
+    private static final int LIBRARY_PAGES = 8;          // Pages a paged library table keeps in memory
+
     Media media;
     MediaPlayer mediaPlayer;
+    PlaybackSession session; // Session of the media file that is shown, which owns the listeners added for it
+    final GaplessPlayer playback = new GaplessPlayer(App.getCrossfade()); // Plays the media files and opens the next one of a playlist ahead of time
+    TableView<spaget.Media> queueView;                                     // Table of the playlist being played, or null if a single media file is played
+    TransportUpdater transport;                                            // Updates the current time label and the seek slider
+
+    LibraryService libraryService; // Updates the library in the background
+    LibrarySearch librarySearch;   // Searches the library in the background
+    boolean streaming;             // Whether the rows are added while the library is updated, since there was no snapshot to show
+
+    /* Rows of the library table, filtered by the current search and sorted by the table's columns or by rank */
+
+    final ObservableList<spaget.Media> libraryItems = FXCollections.observableArrayList();
+    final FilteredList<spaget.Media> filteredItems = new FilteredList<>(libraryItems);
+    final SortedList<spaget.Media> sortedItems = new SortedList<>(filteredItems);
+    final ObjectProperty<SearchResult> searchResult = new SimpleObjectProperty<>();
+
+    /* Rows of the library table if it's paged instead, see App#isPagedLibrary() */
+
+    PagedMediaList pagedItems;
+    PauseTransition pagedRefresh;
+
+    ContextMenu menuRow;            // Context menu shared by the records of the library table, see getRowMenu()
+    boolean menuRowOutdated = true; // Whether the playlists have changed since the menu's items were created
+
+    /* Loads the playlists in the background */
+
+    final Service<ArrayList<Playlist>> playlistService = new Service<>() {
+        @Override
+        protected Task<ArrayList<Playlist>> createTask() {
+            return new Task<>() {
+                @Override
+                protected ArrayList<Playlist> call() {
+                    return App.getPlaylists(true);
+                }
+            };
+        }
+    };
 
     @FXML
     MediaView mediaView;
@@ -40,7 +98,13 @@ public class PlayerController {
     Region regionAlbumBackground;
 
     @FXML
-    Button btnPlay, btnStepBack, btnStop, btnStepForward;
+    Button btnPlay, btnStepBack, btnStop, btnStepForward, btnCancelScan;
+
+    @FXML
+    HBox paneScanProgress;
+
+    @FXML
+    ProgressBar progressScan;
 
     @FXML
     FontIcon iconBtnPlay;
@@ -74,41 +138,33 @@ public class PlayerController {
 
     @FXML
     void initialize() {
+        setSearchListeners();
+        setLoadingListeners();
         updateMediaTable();
 
+        /* Changes to the library are applied to the table as they happen, and the whole library is updated if changes to the library folders were lost */
+
+        App.getCatalog().addListener(delta -> Platform.runLater(() -> applyLibraryDelta(delta)));
+        App.watchLibrary(() -> Platform.runLater(this::updateMediaTable));
+
         /* Default values */
 
         viewTableMedia.setPlaceholder(new Label("No media files in local folder"));
+        viewTableMedia.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE); // Several media files can be added to a playlist at once
         sliderVolume.setValue(50.0);
 
         /* Listeners */
 
+        playback.setOnChanged(this::showPlayer);
         setControlListeners();
+        setTransportListeners();
 
         paneTab.getSelectionModel().selectedIndexProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue.intValue() == 0) {
-                updateMediaTable();
-            } else {
+            if (newValue.intValue() != 0) {
                 updatePlaylistList();
             }
         });
 
-        fieldSearch.textProperty().addListener((observable, oldValue, newValue) -> {
-            if (!newValue.isEmpty()) {
-                viewTableMedia.getItems().stream()
-                        .filter(media -> media.toString().toLowerCase().contains(newValue.toLowerCase()))
-                        .findAny()
-                        .ifPresent(media -> {
-                            viewTableMedia.getSelectionModel().select(media);
-                            viewTableMedia.scrollTo(media);
-                        });
-            } else {
-                viewTableMedia.getSelectionModel().select(null);
-            }
-        });
-
-        fieldSearch.setOnAction(e -> playMedia(viewTableMedia.getSelectionModel().getSelectedItem().getPath()));
-
         /* Context Menu for Library ListView */
 
         MenuItem refresh = new MenuItem("Refresh");
@@ -130,6 +186,161 @@ public class PlayerController {
         viewListPlaylists.setContextMenu(menuPlaylist);
     }
 
+    /**
+     * Filters the library table by the text in {@link #fieldSearch}.
+     * <p>
+     * Searches run on a background thread once the user has stopped typing for {@link #SEARCH_DEBOUNCE} milliseconds. The table shows every match, ranked from best to worst unless the user has
+     * sorted it by a column, and the best match is selected so it can be played by pressing enter. The number of matches and the time the search took are shown in the field's tooltip.
+     */
+    private void setSearchListeners() {
+        fieldSearch.setOnAction(e -> {
+            spaget.Media selected = viewTableMedia.getSelectionModel().getSelectedItem();
+
+            if (selected != null) {
+                playMedia(selected.getPath());
+            }
+        });
+
+        if (App.isPagedLibrary()) {
+            setPagedListeners();
+
+            return;
+        }
+
+        librarySearch = new LibrarySearch(App.getCatalog(), SEARCH_DEBOUNCE, result -> Platform.runLater(() -> {
+            if (result.getQuery().equals(fieldSearch.getText())) { // Ignore results of queries that have since been changed
+                searchResult.set(result);
+            }
+        }));
+
+        viewTableMedia.setItems(sortedItems);
+        viewTableMedia.setSortPolicy(table -> true); // The sorted list follows the comparator below, so the table doesn't have to sort anything
+
+        sortedItems.comparatorProperty().bind(Bindings.createObjectBinding(() -> {
+            Comparator<spaget.Media> columns = viewTableMedia.getComparator();
+            SearchResult result = searchResult.get();
+
+            if (columns != null || result == null || !result.isFiltered()) {
+                return columns;
+            }
+
+            return Comparator.comparingInt(result::getRank);
+        }, viewTableMedia.comparatorProperty(), searchResult));
+
+        fieldSearch.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue.isBlank()) {
+                librarySearch.clear();
+                searchResult.set(null);
+            } else {
+                librarySearch.query(newValue);
+            }
+        });
+
+        searchResult.addListener((observable, oldValue, newValue) -> {
+            if (newValue == null || !newValue.isFiltered()) {
+                filteredItems.setPredicate(null);
+                fieldSearch.setTooltip(null);
+                viewTableMedia.getSelectionModel().clearSelection();
+
+                return;
+            }
+
+            filteredItems.setPredicate(newValue::matches);
+            fieldSearch.setTooltip(new Tooltip(String.format("%d matches in %.1f ms", newValue.getMatchCount(), newValue.getLatency() / 1e6)));
+
+            if (sortedItems.isEmpty()) {
+                viewTableMedia.getSelectionModel().clearSelection();
+            } else {
+                spaget.Media best = newValue.getMatches().get(0);
+
+                viewTableMedia.getSelectionModel().select(best);
+                viewTableMedia.scrollTo(best);
+            }
+        });
+    }
+
+    /**
+     * Shows the library table a page at a time, read from the repository as the user scrolls, for libraries too large to be sorted and searched in memory.
+     * <p>
+     * The repository sorts the rows by the table's first sort column, and filters them by the text in {@link #fieldSearch} once the user has stopped typing. Changes to the library are shown by
+     * reading the table again once the library hasn't changed for {@link #PAGED_REFRESH_DELAY} milliseconds.
+     *
+     * @see PagedMediaList
+     */
+    private void setPagedListeners() {
+        pagedItems = new PagedMediaList(Repositories.media(), LIBRARY_PAGE_SIZE, LIBRARY_PAGES);
+
+        viewTableMedia.setItems(pagedItems);
+        viewTableMedia.setSortPolicy(table -> {
+            TableColumn<spaget.Media, ?> column = table.getSortOrder().isEmpty() ? null : table.getSortOrder().get(0);
+            MediaSort sort = column == columnArtist ? MediaSort.ARTIST : column == columnDuration ? MediaSort.LENGTH : MediaSort.TITLE;
+
+            pagedItems.setOrder(sort, column != null && column.getSortType() == TableColumn.SortType.DESCENDING);
+
+            return true;
+        });
+
+        PauseTransition search = new PauseTransition(javafx.util.Duration.millis(SEARCH_DEBOUNCE));
+        search.setOnFinished(e -> pagedItems.setFilter(fieldSearch.getText().strip()));
+
+        fieldSearch.textProperty().addListener((observable, oldValue, newValue) -> search.playFromStart());
+
+        pagedRefresh = new PauseTransition(javafx.util.Duration.millis(PAGED_REFRESH_DELAY));
+        pagedRefresh.setOnFinished(e -> pagedItems.refresh());
+
+        pagedItems.refresh();
+    }
+
+    /**
+     * @return result of the search shown in the library table, or {@code null} if the table isn't filtered
+     */
+    public SearchResult getSearchResult() {
+        return searchResult.get();
+    }
+
+    /**
+     * Implements the {@code Listener}s of {@link #libraryService} and {@link #playlistService}.
+     * <p>
+     * The progress bar and cancel button below the library table are shown while the library is being updated. If the rows were added while the update was running, they are replaced by the
+     * media files in the library's catalog once it has finished, been cancelled, or failed.
+     */
+    private void setLoadingListeners() {
+        libraryService = new LibraryService(batch -> {
+            if (streaming) {
+                libraryItems.addAll(batch);
+            }
+        });
+
+        paneScanProgress.visibleProperty().bind(libraryService.runningProperty());
+        paneScanProgress.managedProperty().bind(libraryService.runningProperty());
+        progressScan.progressProperty().bind(libraryService.progressProperty());
+
+        btnCancelScan.setOnAction(e -> libraryService.cancel());
+
+        libraryService.setOnSucceeded(e -> finishStreaming());
+        libraryService.setOnCancelled(e -> finishStreaming());
+
+        libraryService.setOnFailed(e -> {
+            libraryService.getException().printStackTrace();
+
+            finishStreaming();
+        });
+
+        playlistService.setOnSucceeded(e -> viewListPlaylists.getItems().setAll(playlistService.getValue()));
+        playlistService.setOnFailed(e -> playlistService.getException().printStackTrace());
+    }
+
+    /**
+     * Replaces the rows that were added while the library was updated by the media files in the library's catalog.
+     */
+    private void finishStreaming() {
+        if (streaming) {
+            streaming = false;
+
+            libraryItems.setAll(App.getCatalog().getAll());
+        }
+    }
+
     /**
      * Seeks {@code MediaPlayer} to a playback time specified by {@link #sliderSeek}.
      */
@@ -139,15 +350,24 @@ public class PlayerController {
     }
 
     /**
-     * Creates new instances of {@link #media} and {@link #mediaPlayer} using the argument.
-     * <p>
-     * Control buttons are disabled by default since no media file is played upon initialization. They are enabled the first time a media file is played.
+     * Plays a single media file.
      *
-     * @param path absolute {@code URI} path of a media file as {@code String}
+     * @param path absolute path of a media file as {@code String}
      */
     private void playMedia(String path) {
-        media = new Media(Paths.get(path).toUri().toString());
+        queueView = null;
 
+        playback.play(List.of(path), 0);
+    }
+
+    /**
+     * Shows the player of the media file that has become the current one, whether it was just opened or was opened ahead of time by {@link #playback}.
+     * <p>
+     * Control buttons are disabled by default since no media file is played upon initialization. They are enabled the first time a media file is played.
+     *
+     * @param session session of the current media file
+     */
+    private void showPlayer(PlaybackSession session) {
         if (mediaPlayer == null) {
             btnPlay.setDisable(false);
             btnStepBack.setDisable(false);
@@ -155,23 +375,53 @@ public class PlayerController {
             btnStepForward.setDisable(false);
             sliderVolume.setDisable(false);
             sliderSeek.setDisable(false);
-        } else {
-            mediaPlayer.dispose();
         }
 
-        mediaPlayer = new MediaPlayer(media);
+        this.session = session;
+        mediaPlayer = session.getPlayer();
+        media = session.getMedia();
         mediaView.setMediaPlayer(mediaPlayer);
 
-        /* Remove MP3 album image from the player if it exists */
+        /* Show the album cover extracted when the library was scanned, or remove the previous one */
+
+        String hash = App.getArtwork().getHash(playback.getCurrentPath());
 
-        if (imageAlbum.getImage() != null) {
+        if (hash != null) {
+            imageAlbum.setImage(App.getArtwork().getCover(hash));
+            setAlbumBackground(App.getArtwork().getBackdrop(hash));
+        } else if (imageAlbum.getImage() != null) {
             imageAlbum.setImage(null);
-            regionAlbumBackground.setBackground(Background.EMPTY);
+            setAlbumBackground(null);
+        }
+
+        /* Select the row of the media file if it's played from a playlist */
+
+        if (queueView != null && queueView.getSelectionModel().getSelectedIndex() != playback.getIndex()) {
+            queueView.getSelectionModel().select(playback.getIndex());
         }
 
         setMediaPlayerListeners();
     }
 
+    /**
+     * Fills the area behind the album cover with a backdrop that has already been blurred, so no effect has to be rendered while the media file is playing.
+     *
+     * @param backdrop blurred album cover, or {@code null} to remove the backdrop
+     * @see ArtworkStore#getBackdrop(String)
+     */
+    private void setAlbumBackground(Image backdrop) {
+        if (backdrop == null) {
+            regionAlbumBackground.setBackground(Background.EMPTY);
+
+            return;
+        }
+
+        BackgroundImage image = new BackgroundImage(backdrop, BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT, BackgroundPosition.CENTER,
+                new BackgroundSize(BackgroundSize.AUTO, BackgroundSize.AUTO, false, false, false, true));
+
+        regionAlbumBackground.setBackground(new Background(image));
+    }
+
     /**
      * Plays the selected {@link spaget.Media} if it's double clicked in the table.
      *
@@ -190,7 +440,7 @@ public class PlayerController {
     }
 
     /**
-     * Creates a new empty {@link Playlist} and adds it to the database.
+     * Creates a new empty {@link Playlist} and adds it to the {@link PlaylistCache}, which adds it to the database in the background.
      */
     @FXML
     void handleNewPlaylist() {
@@ -209,24 +459,19 @@ public class PlayerController {
         Optional<String> input = dialog.showAndWait();
 
         input.ifPresent(name -> {
-            for (Playlist playlist : App.getPlaylists()) {
+            /* Display an error alert if there's already a playlist with the same name as the inputted name */
 
-                /* Display an error alert if there's already a playlist with the same name as the inputted name */
+            if (!Repositories.playlists().createPlaylist(name)) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setHeaderText(null);
+                alert.setGraphic(null);
+                alert.setContentText("Playlist already exists!");
+                ((Stage) alert.getDialogPane().getScene().getWindow()).getIcons().add(icon);
+                alert.showAndWait();
 
-                if (playlist.getName().equals(name)) {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setHeaderText(null);
-                    alert.setGraphic(null);
-                    alert.setContentText("Playlist already exists!");
-                    ((Stage) alert.getDialogPane().getScene().getWindow()).getIcons().add(icon);
-                    alert.showAndWait();
-
-                    return;
-                }
+                return;
             }
 
-            DB.insertSQL("INSERT INTO tblPlaylist (fldName) VALUES ('" + name + "')");
-
             updatePlaylistList();
         });
     }
@@ -284,6 +529,8 @@ public class PlayerController {
                 viewTablePlaylist.getColumns().addAll(playlistColumnTitle, playlistColumnArtist, playlistColumnDuration);
                 viewTablePlaylist.getItems().addAll(playlist.getMediaList());
 
+                setPlaylistListeners(viewTablePlaylist);
+
                 Tab tabPlaylist = new Tab(playlist.getName());
                 tabPlaylist.setContent(viewTablePlaylist);
 
@@ -296,77 +543,169 @@ public class PlayerController {
     }
 
     /**
-     * Retrieves an up-to-date {@code ArrayList} of local media files. The files are added as rows in the library table.
+     * Starts an update of the library in the background unless one is already running.
+     * <p>
+     * The table shows the media files already in the library's catalog, e.g. from its snapshot, right away, and changes found by the update are applied to its rows. If the catalog is empty the
+     * media files are added as rows in the table while they are found.
+     *
+     * @see LibraryService
+     * @see App#loadSnapshot()
      */
     @FXML
     void updateMediaTable() {
-        viewTableMedia.getItems().removeAll(viewTableMedia.getItems()); // Remove any items in the table to avoid duplicate records
+        if (libraryService.isRunning()) {
+            return;
+        }
+
+        if (pagedItems != null) {
+            pagedItems.refresh();
+        } else {
+            streaming = App.getCatalog().size() == 0;
+
+            libraryItems.setAll(App.getCatalog().getAll()); // Replaces any items in the table to avoid duplicate records
+        }
 
         columnTitle.setCellValueFactory(new PropertyValueFactory<>("title"));
+        columnTitle.setCellFactory(column -> new ThumbnailCell());
         columnArtist.setCellValueFactory(new PropertyValueFactory<>("artist"));
         columnDuration.setCellValueFactory(new PropertyValueFactory<>("duration"));
 
-        viewTableMedia.getItems().addAll(App.updateMedia());
+        libraryService.load();
 
-        /* Add context menus to each record in the table for adding media files to playlists */
+        /* Add the shared context menu to each record in the table for adding the selected media files to playlists */
 
         viewTableMedia.setRowFactory(view -> {
             TableRow<spaget.Media> row = new TableRow<>();
 
-            row.emptyProperty().addListener((observable, oldValue, newValue) -> {
-                if (!newValue) {
-                    ContextMenu menu = new ContextMenu();
-                    Menu addToPlaylist = new Menu("Add To Playlist");
+            row.emptyProperty().addListener((observable, oldValue, newValue) -> row.setContextMenu(newValue ? null : getRowMenu()));
+
+            return row;
+        });
+    }
+
+    /**
+     * Returns the context menu shared by every record in the library table, creating it the first time it's needed.
+     * <p>
+     * The menu has an item for each playlist, which adds every selected media file to the playlist at once. The items are only created again when the menu is shown after the playlists have
+     * changed, so recycling rows while scrolling creates no menus.
+     *
+     * @return the context menu of the library table's records
+     */
+    private ContextMenu getRowMenu() {
+        if (menuRow == null) {
+            Menu addToPlaylist = new Menu("Add To Playlist");
+
+            menuRow = new ContextMenu(addToPlaylist);
+            menuRow.setOnShowing(e -> {
+                int selected = viewTableMedia.getSelectionModel().getSelectedItems().size();
+
+                addToPlaylist.setText(selected > 1 ? "Add " + selected + " To Playlist" : "Add To Playlist");
+
+                if (menuRowOutdated) {
+                    menuRowOutdated = false;
 
                     /* Add a menu item for each playlist */
 
+                    List<MenuItem> items = new ArrayList<>();
+
                     for (Playlist playlist : viewListPlaylists.getItems()) {
                         MenuItem item = new MenuItem(playlist.getName());
-                        item.setOnAction(e -> {
-                            ArrayList<spaget.Media> mediaList = playlist.getMediaList();
+                        item.setOnAction(event -> addToPlaylist(playlist, new ArrayList<>(viewTableMedia.getSelectionModel().getSelectedItems())));
 
-                            for (spaget.Media media : mediaList) {
-                                if (media.getPath().equals(row.getItem().getPath())) {
+                        items.add(item);
+                    }
 
-                                    /* Display an error alert if the media file already is in the playlist */
+                    addToPlaylist.getItems().setAll(items);
+                }
+            });
 
-                                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                                    alert.setHeaderText(null);
-                                    alert.setGraphic(null);
-                                    alert.setContentText("Media is already in the playlist!");
-                                    ((Stage) alert.getDialogPane().getScene().getWindow()).getIcons().add(new Image(this.getClass().getResourceAsStream("/images/spaghetti.png")));
-                                    alert.showAndWait();
+            viewListPlaylists.getItems().addListener((ListChangeListener<Playlist>) change -> menuRowOutdated = true);
+        }
 
-                                    return;
-                                }
-                            }
+        return menuRow;
+    }
 
-                            mediaList.add(row.getItem());
+    /**
+     * Adds media files to a playlist in a single batch, skipping those that already are in the playlist.
+     *
+     * @param playlist playlist the media files are added to
+     * @param media    media files to be added
+     */
+    private void addToPlaylist(Playlist playlist, List<spaget.Media> media) {
+        media.removeIf(Objects::isNull); // Rows of a paged table that haven't been read yet
 
-                            DB.insertSQL("INSERT INTO tblPlaylistMedia (fldPlaylistName, fldMediaPath) VALUES ('" + playlist.getName() + "', '" + row.getItem().getPath(true) + "')");
-                        });
+        if (media.isEmpty() || !playlist.addMedia(media).isEmpty()) {
+            return;
+        }
 
-                        addToPlaylist.getItems().add(item);
-                    }
+        /* Display an error alert if every media file already is in the playlist */
+
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setHeaderText(null);
+        alert.setGraphic(null);
+        alert.setContentText(media.size() == 1 ? "Media is already in the playlist!" : "All " + media.size() + " media files are already in the playlist!");
+        ((Stage) alert.getDialogPane().getScene().getWindow()).getIcons().add(new Image(this.getClass().getResourceAsStream("/images/spaghetti.png")));
+        alert.showAndWait();
+    }
+
+    /**
+     * Applies changes to the library to the rows of the library table, without reloading the rest of the table.
+     * <p>
+     * Changes are ignored while rows are added by {@link #libraryService}, since the table is filled from the catalog once it has finished.
+     *
+     * @param delta changes made to the library
+     * @see LibraryCatalog#addListener(java.util.function.Consumer)
+     */
+    private void applyLibraryDelta(LibraryDelta delta) {
+        if (pagedItems != null) {
+            pagedRefresh.playFromStart(); // Read again once the library has stopped changing
+
+            return;
+        }
+
+        if (streaming) {
+            return;
+        }
+
+        ObservableList<spaget.Media> items = libraryItems; // Rows before they are filtered by the search
+
+        Set<String> removed = new HashSet<>();
+
+        for (spaget.Media media : delta.getRemoved()) {
+            removed.add(media.getPath());
+        }
+
+        if (!removed.isEmpty()) {
+            items.removeIf(media -> removed.contains(media.getPath()));
+        }
+
+        if (!delta.getUpdated().isEmpty()) {
+            Map<String, Integer> rows = new HashMap<>(); // Row index of each media file by path
+
+            for (int i = 0; i < items.size(); i++) {
+                rows.put(items.get(i).getPath(), i);
+            }
+
+            for (spaget.Media media : delta.getUpdated()) {
+                Integer index = rows.get(media.getPath());
 
-                    menu.getItems().add(addToPlaylist);
-                    row.setContextMenu(menu);
+                if (index != null) {
+                    items.set(index, media);
                 }
-            });
+            }
+        }
 
-            return row;
-        });
+        items.addAll(delta.getAdded());
     }
 
     /**
-     * Retrieves an up-to-date {@code ArrayList} of playlists and {@link Playlist}s added as rows in the playlist list.
+     * Loads an up-to-date {@code ArrayList} of playlists in the background and adds the {@link Playlist}s as rows in the playlist list.
      * <p>
      * {@code Context Menu}s are added to each row in the list with items: rename, delete, and new playlist.
      */
     @FXML
     void updatePlaylistList() {
-        viewListPlaylists.getItems().removeAll(viewListPlaylists.getItems());
-        viewListPlaylists.getItems().addAll(App.getPlaylists());
+        playlistService.restart(); // The list is filled once the playlists have been loaded
 
         /* Add context menus to each record in the table for renaming and deleting playlists */
 
@@ -392,25 +731,19 @@ public class PlayerController {
                         Optional<String> input = dialog.showAndWait();
 
                         input.ifPresent(name -> {
-                            for (Playlist playlist : App.getPlaylists()) {
-                                if (playlist.getName().equals(name)) {
-
-                                    /* Display an error alert if a playlist with the inputted name already exists */
+                            /* Rename the playlist in the table, or display an error alert if a playlist with the inputted name already exists */
 
-                                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                                    alert.setHeaderText(null);
-                                    alert.setGraphic(null);
-                                    alert.setContentText("Playlist already exists with that name!");
-                                    ((Stage) alert.getDialogPane().getScene().getWindow()).getIcons().add(icon);
-                                    alert.showAndWait();
+                            if (!cell.itemProperty().get().setName(name)) {
+                                Alert alert = new Alert(Alert.AlertType.ERROR);
+                                alert.setHeaderText(null);
+                                alert.setGraphic(null);
+                                alert.setContentText("Playlist already exists with that name!");
+                                ((Stage) alert.getDialogPane().getScene().getWindow()).getIcons().add(icon);
+                                alert.showAndWait();
 
-                                    return;
-                                }
+                                return;
                             }
 
-                            /* Rename the playlist in the table */
-
-                            cell.itemProperty().get().setName(name);
                             cell.textProperty().bind(cell.itemProperty().asString());
                         });
                     });
@@ -423,7 +756,7 @@ public class PlayerController {
                         cell.textProperty().unbind();
                         cell.setText("");
 
-                        DB.deleteSQL("DELETE FROM tblPlaylist WHERE fldName = '" + cell.itemProperty().get().getName() + "'");
+                        Repositories.playlists().deletePlaylist(cell.itemProperty().get().getName());
                         viewListPlaylists.getItems().remove(cell.itemProperty().get());
                     });
 
@@ -449,40 +782,44 @@ public class PlayerController {
     private void startPlaylist(Tab tab) {
         TableView<spaget.Media> view = ((TableView) tab.getContent()); // Object of the table of the given tab
 
-        /* Play each media file (in order) after the previous has finished playing */
+        view.getSelectionModel().clearSelection();
+        view.getSelectionModel().select(0);
+    }
 
+    /**
+     * Plays a playlist's table from the selected media file whenever the user selects a row, followed by the rest of the playlist without a gap. Added once, when the table is created.
+     *
+     * @param view table of the playlist's media files
+     */
+    private void setPlaylistListeners(TableView<spaget.Media> view) {
         view.getSelectionModel().selectedItemProperty().addListener(((observable, oldValue, newValue) -> {
-            if (newValue != null) {
-                playMedia(newValue.getPath());
+            int index = view.getSelectionModel().getSelectedIndex();
 
-                mediaPlayer.setOnEndOfMedia(() -> {
-                    int currentIndex = view.getSelectionModel().getSelectedIndex() + 1;
+            if (newValue != null && (queueView != view || playback.getIndex() != index)) {
+                List<String> paths = new ArrayList<>();
 
-                    if (currentIndex < view.getItems().size()) {
-                        view.getSelectionModel().select(currentIndex);
-                    }
-                });
+                for (spaget.Media item : view.getItems()) {
+                    paths.add(item.getPath());
+                }
+
+                queueView = view;
+                playback.play(paths, index);
             }
         }));
-
-        view.getSelectionModel().select(0);
     }
 
     /**
-     * Implements various {@code Listener}s for the {@link #mediaPlayer} object.
-     * <p>
-     * {@link #sliderVolume} detects a change in value and applies the new value to {@link #mediaPlayer}'s volume.
+     * Implements various {@code Listener}s for the {@link #mediaPlayer} object, added through its {@link #session} so none of them outlive it.
      * <p>
-     * {@link #mediaPlayer} changes {@link #btnPlay}'s icon depending on whether or not the current media is playing. {@link #labelCurrentTime}'s text and {@link #sliderSeek}'s value are changed as
-     * the {@code currentTimeProperty} of the {@code MediaPlayer} changes. {@link #labelTotalDuration}'s text and {@link #sliderSeek}'s max value are set to the total duration of {@link #media}.
+     * {@link #mediaPlayer} changes {@link #btnPlay}'s icon depending on whether or not the current media is playing. {@link #labelCurrentTime}'s text and {@link #sliderSeek}'s value are updated by
+     * {@link #transport}. {@link #labelTotalDuration}'s text and {@link #sliderSeek}'s max value are set to the total duration of {@link #media}.
      */
     private void setMediaPlayerListeners() {
-        sliderVolume.valueProperty().addListener((observable, oldValue, newValue) -> mediaPlayer.setVolume(newValue.doubleValue() / 100.0)); // Player volume changes when the volume slider changes
 
-        /* The play/pause button's icon changes depending on whether or not a media file is playing */
+        /* The play/pause button's icon changes depending on whether or not a media file is playing. The listener is removed when the session is closed */
 
-        mediaPlayer.statusProperty().addListener((observable, oldValue, newValue) -> {
-            if (mediaPlayer.getStatus() == PLAYING) {
+        session.listen(mediaPlayer.statusProperty(), (observable, oldValue, newValue) -> {
+            if (newValue == PLAYING) {
                 iconBtnPlay.setIconLiteral("fas-pause");
             } else {
                 iconBtnPlay.setIconLiteral("fas-play");
@@ -491,34 +828,46 @@ public class PlayerController {
 
         /* The current time label displays the current time in the media file, and the seek slider moves along with the current time */
 
-        mediaPlayer.currentTimeProperty().addListener((observable, oldValue, newValue) -> {
-            labelCurrentTime.setText(spaget.Media.formatSeconds((int) Math.round(newValue.toSeconds())));
+        transport.setPlayer(mediaPlayer);
 
-            if (!sliderSeek.isPressed()) {
-                sliderSeek.setValue(newValue.toSeconds());
-            }
-        });
-
-        mediaPlayer.setOnReady(() -> {
-            labelTotalDuration.setText(spaget.Media.formatSeconds((int) Math.round(media.getDuration().toSeconds()))); // The total duration label is set to match the total duration of the current media file
-            sliderSeek.setMax(media.getDuration().toSeconds());                                                        // The max value of the seek slider is set to match the total duration of the current media file
+        if (mediaPlayer.getStatus() == MediaPlayer.Status.UNKNOWN) {
+            mediaPlayer.setOnReady(this::showMediaInfo);
+        } else {
+            showMediaInfo(); // Opened ahead of time, so it's ready already
+        }
+    }
 
-            Map<String, Object> metadata = media.getMetadata(); // Map object containing the current media file's metadata
+    /**
+     * Shows the total duration and album cover of {@link #media} once it's ready.
+     */
+    private void showMediaInfo() {
+        labelTotalDuration.setText(spaget.Media.formatSeconds((int) Math.round(media.getDuration().toSeconds()))); // The total duration label is set to match the total duration of the current media file
+        sliderSeek.setMax(media.getDuration().toSeconds());                                                        // The max value of the seek slider is set to match the total duration of the current media file
 
-            /* Displays the album cover of the media file if one exists */
+        Map<String, Object> metadata = media.getMetadata(); // Map object containing the current media file's metadata
 
-            if (metadata.containsKey("image")) {
-                imageAlbum.setImage((Image) metadata.get("image"));
+        /* Displays the album cover from the media file's metadata if none was extracted when the library was scanned */
 
-                BackgroundImage image = new BackgroundImage(imageAlbum.getImage(), BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT, BackgroundPosition.CENTER,
-                        new BackgroundSize(BackgroundSize.AUTO, BackgroundSize.AUTO, false, false, false, true));
+        if (imageAlbum.getImage() == null && metadata.containsKey("image")) {
+            imageAlbum.setImage((Image) metadata.get("image"));
+            setAlbumBackground(ArtworkStore.blur(imageAlbum.getImage())); // Blurred once instead of on every frame
+        }
+    }
 
-                regionAlbumBackground.setBackground(new Background(image));
-                regionAlbumBackground.setEffect(new GaussianBlur(50));
+    /**
+     * Updates the current time label and the seek slider at most {@link App#getRefreshRate()} times a second, and not at all while the window is minimized.
+     */
+    private void setTransportListeners() {
+        transport = new TransportUpdater(App.getRefreshRate(), labelCurrentTime, sliderSeek);
+
+        paneMediaView.sceneProperty().addListener((observable, oldScene, scene) -> {
+            if (scene != null) {
+                scene.windowProperty().addListener((windowObservable, oldWindow, window) -> {
+                    if (window instanceof Stage) {
+                        ((Stage) window).iconifiedProperty().addListener((iconifiedObservable, oldValue, iconified) -> transport.setMinimized(iconified));
+                    }
+                });
             }
-
-            mediaPlayer.setVolume(sliderVolume.getValue() / 100.0); // Sets the volume of the media player to be the same as the value of the volume slider
-            mediaPlayer.play();                                     // Plays the current media file
         });
     }
 
@@ -526,6 +875,8 @@ public class PlayerController {
      * Implements an appropriate {@code Listener} to each of the control buttons and sliders.
      */
     private void setControlListeners() {
+        sliderVolume.valueProperty().addListener((observable, oldValue, newValue) -> playback.setVolume(newValue.doubleValue() / 100.0)); // Player volume changes when the volume slider changes
+        playback.setVolume(sliderVolume.getValue() / 100.0);                                                                              // The slider's value was set before the listener was added
 
         /* Plays or pauses the video */
 
@@ -539,6 +890,65 @@ public class PlayerController {
 
         btnStepBack.setOnAction(e -> mediaPlayer.seek(javafx.util.Duration.seconds(0)));    // Seeks to the start of the media file
         btnStop.setOnAction(e -> mediaPlayer.stop());                                       // Stops the media file
-        btnStepForward.setOnAction(e -> mediaPlayer.seek(media.getDuration()));             // Seeks to the end of the media file
+        btnStepForward.setOnAction(e -> mediaPlayer.seek(media.getDuration()));             // Seeks to the end of the media file, which starts the next one of a playlist
+    }
+
+    /**
+     * Title cell of the library table, showing the thumbnail of the media file's album cover next to the title. Thumbnails that haven't been loaded are loaded in the background, and are only
+     * shown if the cell still shows the same cover once they have been loaded.
+     */
+    private static class ThumbnailCell extends TableCell<spaget.Media, String> {
+        private static final double SIZE = 24; // Width and height of a thumbnail in the table
+
+        private final ImageView thumbnail = new ImageView();
+        private String hash; // Hash of the cover shown by the cell
+
+        private ThumbnailCell() {
+            thumbnail.setFitWidth(SIZE);
+            thumbnail.setFitHeight(SIZE);
+            thumbnail.setPreserveRatio(true);
+            thumbnail.setSmooth(true);
+        }
+
+        @Override
+        protected void updateItem(String title, boolean empty) {
+            super.updateItem(title, empty);
+
+            spaget.Media media = getTableRow() != null ? getTableRow().getItem() : null;
+
+            if (empty || media == null) {
+                hash = null;
+                setText(null);
+                setGraphic(null);
+
+                return;
+            }
+
+            setText(title);
+            setGraphic(thumbnail);
+
+            String current = App.getArtwork().getHash(media.getPath());
+
+            if (current != null && current.equals(hash) && thumbnail.getImage() != null) {
+                return;
+            }
+
+            hash = current;
+            thumbnail.setImage(null);
+
+            if (current != null) {
+                Image image = App.getArtwork().getCachedThumbnail(current);
+
+                if (image != null) {
+                    thumbnail.setImage(image);
+                } else {
+                    App.getArtwork().loadThumbnail(current, loaded -> Platform.runLater(() -> {
+                        if (current.equals(hash)) {
+                            thumbnail.setImage(loaded);
+                        }
+                    }));
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,17 @@
 package spaget;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * Models a playlist of media files.
+ * <p>
+ * The paths of the media files are indexed, so whether a media file is in the playlist is known without searching the list.
  *
  * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
  * @version 4.0.0
@@ -12,9 +20,20 @@ import java.util.ArrayList;
 public class Playlist {
     private String name;
     private final ArrayList<Media> mediaList = new ArrayList<>();
+    private final Set<String> paths = new HashSet<>(); // Paths of the media files in mediaList
+    private boolean loaded;
 
     public Playlist(String name) {
+        this(name, true);
+    }
+
+    /**
+     * @param name   name of the {@code Playlist}
+     * @param loaded whether the media files are added by the caller, or should be read from the database the first time they're needed
+     */
+    public Playlist(String name, boolean loaded) {
         this.name = name;
+        this.loaded = loaded;
     }
 
     public String getName() {
@@ -22,18 +41,102 @@ public class Playlist {
     }
 
     /**
-     * Sets the new name of the {@code Playlist} and updates it in the database.
+     * Sets the new name of the {@code Playlist} and updates it in the {@link PlaylistCache}, which renames it in the database in the background. The name is kept if the playlist can't be
+     * renamed, e.g. because another playlist already has the new name.
      *
      * @param name new name of the {@code Playlist}
+     * @return {@code true} if the {@code Playlist} was renamed
      */
-    public void setName(String name) {
-        DB.updateSQL("UPDATE tblPlaylist SET fldName = '" + name + "' WHERE fldName = '" + this.name + "'");
+    public boolean setName(String name) {
+        if (!Repositories.playlists().renamePlaylist(this.name, name)) {
+            return false;
+        }
 
         this.name = name;
+
+        return true;
+    }
+
+    /**
+     * Returns the media files of the {@code Playlist}, reading them from the database if they haven't been loaded yet.
+     *
+     * @return unmodifiable {@code List} of the playlist's media files
+     */
+    public List<Media> getMediaList() {
+        load();
+
+        return Collections.unmodifiableList(mediaList);
+    }
+
+    private void load() {
+        if (!loaded) {
+            loaded = true;
+
+            for (Media media : App.getPlaylistMedia(name)) {
+                add(media);
+            }
+        }
+    }
+
+    /**
+     * @param media media file to look for
+     * @return {@code true} if a media file with the same path is in the {@code Playlist}
+     */
+    public boolean contains(Media media) {
+        load();
+
+        return paths.contains(media.getPath());
     }
 
-    public ArrayList<Media> getMediaList() {
-        return mediaList;
+    /**
+     * Adds the media files that aren't in the {@code Playlist} yet and adds them to the {@link PlaylistCache}, which adds them to the database in a single batch in the background.
+     * <p>
+     * If the media files of the {@code Playlist} haven't been loaded they aren't read first, so adding never waits for the database. Every media file is handed to the cache then, which skips
+     * those already in the playlist when it writes them, and they are read with the rest the first time they're needed.
+     *
+     * @param media media files to be added, in order
+     * @return the media files that were added, which excludes those already in the {@code Playlist} if its media files have been loaded
+     */
+    public List<Media> addMedia(Collection<Media> media) {
+        List<Media> added = new ArrayList<>();
+        Set<String> addedPaths = new HashSet<>(); // Paths of the added media files, if the playlist's media files haven't been loaded
+
+        for (Media m : media) {
+            if (loaded ? add(m) : addedPaths.add(m.getPath())) {
+                added.add(m);
+            }
+        }
+
+        if (!added.isEmpty()) {
+            Repositories.entries().addEntries(name, added);
+        }
+
+        return added;
+    }
+
+    /**
+     * Adds a media file read from the database, without adding it to the database again.
+     *
+     * @param media media file to be added
+     * @return {@code true} if it wasn't in the {@code Playlist} already
+     */
+    boolean add(Media media) {
+        if (!paths.add(media.getPath())) {
+            return false;
+        }
+
+        mediaList.add(media);
+
+        return true;
+    }
+
+    /**
+     * Replaces every media file with another instance of the same media file, e.g. the one in the {@link LibraryCatalog}.
+     *
+     * @param operator returns the instance to be used for a media file, with the same path
+     */
+    void replaceAll(UnaryOperator<Media> operator) {
+        mediaList.replaceAll(operator);
     }
 
     /**
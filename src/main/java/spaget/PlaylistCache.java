@@ -0,0 +1,505 @@
+package spaget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every playlist and its media files in memory and writes the changes to the store in the background.
+ * <p>
+ * The names are read from the store the first time they're needed, and the media files of a playlist the first time it's opened. Media files can be added to a playlist that hasn't been
+ * opened without reading it, in which case those already in it are skipped when they're written. From then on the cache is authoritative: names are looked up in a {@code Map}, a new or
+ * renamed playlist is checked against them, and every change is made in memory and returned at once. The changes are queued and written by a single thread a short while later, in the order
+ * they were made. A change that undoes or extends the last queued change of the same playlist is merged with it, e.g. media files added one after another are written as a single batch, and
+ * a playlist that is deleted before it has been written is never written at all. A change that can't be written is tried again a few times, before the changes queued after it, and only
+ * dropped once every attempt has failed. {@link #close()} writes whatever is still queued.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories#playlists()
+ * @see Repositories#entries()
+ * @since 18.10.2026
+ */
+public class PlaylistCache implements PlaylistRepository, PlaylistEntryRepository, AutoCloseable {
+    private static final int MAX_ATTEMPTS = 3;       // Number of times a change is written before it's dropped
+    private static final long RETRY_DELAY = 1000;    // Milliseconds waited before the second attempt, doubled for every attempt after it
+
+    private final PlaylistRepository playlistStore;
+    private final PlaylistEntryRepository entryStore;
+    private final MediaWriteQueue media;
+    private final long delay;
+    private final ScheduledExecutorService writer;
+
+    private Map<String, ArrayList<Media>> playlists; // Media files by playlist name, null until the media files are read, and the map itself until the names are read
+    private final Deque<Change> pending = new ArrayDeque<>(); // Changes that haven't been taken by the writer yet, oldest first
+    private ScheduledFuture<?> pendingWrite;
+    private Change writing; // Change the writer has taken and is writing, if any
+    private long finished;  // Number of changes the writer has finished, whether they were written or not
+
+    /**
+     * Sole constructor.
+     *
+     * @param playlistStore stores the playlists
+     * @param entryStore    stores the media files of the playlists
+     * @param media         queued changes to the media files, which are written before the changes to the playlists so every media file added to a playlist is stored
+     * @param delay         milliseconds to wait for further changes before they are written
+     */
+    public PlaylistCache(PlaylistRepository playlistStore, PlaylistEntryRepository entryStore, MediaWriteQueue media, long delay) {
+        this.playlistStore = playlistStore;
+        this.entryStore = entryStore;
+        this.media = media;
+        this.delay = delay;
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spaget-playlist-writer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /* Playlists */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The media files of playlists that haven't been opened yet are read from the store, after the queued changes have been written.
+     */
+    @Override
+    public ArrayList<Playlist> findPlaylists(boolean headersOnly) {
+        ArrayList<Playlist> found = new ArrayList<>();
+
+        for (String name : names()) {
+            if (headersOnly) {
+                found.add(new Playlist(name, false));
+            } else {
+                Playlist playlist = new Playlist(name, true);
+
+                findEntries(name).forEach(playlist::add);
+                found.add(playlist);
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public synchronized boolean playlistExists(String name) {
+        return loadNames().containsKey(name);
+    }
+
+    @Override
+    public synchronized boolean createPlaylist(String name) {
+        if (loadNames().containsKey(name)) {
+            return false;
+        }
+
+        playlists.put(name, new ArrayList<>());
+        enqueue(new Change(Change.Type.CREATE, name, null, null));
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code true} if the playlist was renamed, or {@code false} if it doesn't exist or a playlist with the new name already exists
+     */
+    @Override
+    public synchronized boolean renamePlaylist(String name, String newName) {
+        if (!loadNames().containsKey(name) || playlists.containsKey(newName)) {
+            return false;
+        }
+
+        Map<String, ArrayList<Media>> renamed = new LinkedHashMap<>(); // Rebuilt so the playlist keeps its place in the list
+
+        playlists.forEach((key, media) -> renamed.put(key.equals(name) ? newName : key, media));
+        playlists = renamed;
+
+        Change last = pending.peekLast();
+
+        if (last != null && last.playlist.equals(name) && (last.type == Change.Type.CREATE || last.type == Change.Type.RENAME)) {
+            last.playlist = newName; // Created or renamed under the new name instead
+
+            if (last.type == Change.Type.RENAME && last.oldName.equals(newName)) {
+                pending.removeLast(); // Renamed back before it was written
+            }
+        } else {
+            enqueue(new Change(Change.Type.RENAME, newName, name, null));
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Queued changes to the playlist that haven't been written yet are dropped, and so is the playlist itself if it was created after the last write.
+     */
+    @Override
+    public synchronized boolean deletePlaylist(String name) {
+        if (!loadNames().containsKey(name)) {
+            return false;
+        }
+
+        playlists.remove(name);
+
+        Change last;
+
+        while ((last = pending.peekLast()) != null && last.playlist.equals(name) && (last.type == Change.Type.ADD || last.type == Change.Type.REMOVE)) {
+            pending.removeLast(); // The entries are deleted with the playlist anyway
+        }
+
+        if (last != null && last.playlist.equals(name) && last.type == Change.Type.CREATE) {
+            pending.removeLast(); // Never written, so there's nothing to delete
+        } else {
+            enqueue(new Change(Change.Type.DELETE, name, null, null));
+        }
+
+        return true;
+    }
+
+    /* Playlist entries */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The media files are read from the store the first time. The store is read at once, unless a change to the playlist hasn't been written yet, in which case it's read after the queued
+     * changes have been written or dropped.
+     */
+    @Override
+    public ArrayList<Media> findEntries(String playlist) {
+        ArrayList<Media> media = loadEntries(playlist);
+
+        synchronized (this) {
+            return media != null ? new ArrayList<>(media) : new ArrayList<>();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The media files of the playlist aren't read if it hasn't been opened yet. They are read with the added ones the first time it's opened, and the writer skips the added media files that
+     * already are in it.
+     */
+    @Override
+    public synchronized boolean addEntries(String playlist, Collection<Media> media) {
+        if (!loadNames().containsKey(playlist)) {
+            return false;
+        }
+
+        ArrayList<Media> entries = playlists.get(playlist); // Null if the playlist hasn't been opened yet
+
+        if (entries != null) {
+            entries.addAll(media);
+        }
+
+        Change last = pending.peekLast();
+
+        if (last != null && last.playlist.equals(playlist) && last.type == Change.Type.ADD) {
+            Set<String> paths = new HashSet<>();
+
+            last.media.forEach(m -> paths.add(m.getPath()));
+            media.stream().filter(m -> paths.add(m.getPath())).forEach(last.media::add); // Written as one batch
+            last.unchecked |= entries == null;
+        } else {
+            Change change = new Change(Change.Type.ADD, playlist, null, new ArrayList<>(media));
+
+            change.unchecked = entries == null;
+            enqueue(change);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean removeEntry(String playlist, Media media) {
+        loadEntries(playlist);
+
+        synchronized (this) {
+            ArrayList<Media> entries = playlists.get(playlist);
+
+            if (entries == null || !entries.removeIf(m -> m.getPath().equals(media.getPath()))) {
+                return false;
+            }
+
+            Change last = pending.peekLast();
+
+            if (last != null && last.playlist.equals(playlist) && last.type == Change.Type.ADD && last.media.removeIf(m -> m.getPath().equals(media.getPath()))) {
+                if (last.media.isEmpty()) {
+                    pending.removeLast(); // Removed before it was written
+                }
+            } else {
+                enqueue(new Change(Change.Type.REMOVE, playlist, null, new ArrayList<>(List.of(media))));
+            }
+
+            return true;
+        }
+    }
+
+    /* Cache */
+
+    private synchronized ArrayList<String> names() {
+        return new ArrayList<>(loadNames().keySet());
+    }
+
+    /**
+     * Reads the names of the playlists from the store, unless they have been read already. Called while holding the lock.
+     *
+     * @return media files by playlist name
+     */
+    private Map<String, ArrayList<Media>> loadNames() {
+        if (playlists == null) {
+            playlists = new LinkedHashMap<>();
+
+            for (Playlist playlist : playlistStore.findPlaylists(true)) {
+                playlists.put(playlist.getName(), null);
+            }
+        }
+
+        return playlists;
+    }
+
+    /**
+     * Reads the media files of a playlist from the store, unless they have been read already. If a change to the playlist hasn't been written yet the queued changes are written first, so the
+     * store is up to date when it's read. Otherwise the store already is, and it's read without waiting for the writer, which is what happens when a playlist is opened for the first time.
+     * <p>
+     * The media files are only kept if no change was written while the store was read and none to the playlist is queued, so they never miss a change. Otherwise the store is read again.
+     *
+     * @param playlist name of the playlist
+     * @return media files of the playlist, or {@code null} if it doesn't exist
+     */
+    private ArrayList<Media> loadEntries(String playlist) {
+        while (true) {
+            boolean unwritten;
+            long before;
+
+            synchronized (this) {
+                if (!loadNames().containsKey(playlist) || playlists.get(playlist) != null) {
+                    return playlists.get(playlist);
+                }
+
+                unwritten = isUnwritten(playlist);
+            }
+
+            if (unwritten) {
+                flush();
+            }
+
+            synchronized (this) {
+                before = finished;
+            }
+
+            ArrayList<Media> media = entryStore.findEntries(playlist);
+
+            synchronized (this) {
+                if (!playlists.containsKey(playlist) || playlists.get(playlist) != null) {
+                    return playlists.get(playlist);
+                }
+
+                if (finished == before && !isUnwritten(playlist)) {
+                    playlists.put(playlist, media);
+
+                    return media;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called while holding the lock.
+     *
+     * @param playlist name of the playlist
+     * @return {@code true} if a change to the playlist is queued or being written
+     */
+    private boolean isUnwritten(String playlist) {
+        return writing != null && writing.concerns(playlist) || pending.stream().anyMatch(change -> change.concerns(playlist));
+    }
+
+    /**
+     * Queues a change and schedules the queue to be written, unless a write is scheduled already. Called while holding the lock.
+     *
+     * @param change change to be written
+     */
+    private void enqueue(Change change) {
+        pending.addLast(change);
+
+        if (pendingWrite == null && !writer.isShutdown()) {
+            pendingWrite = writer.schedule(this::write, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the queued changes in order. Only called by the writer thread, so no change is written twice or out of order.
+     * <p>
+     * A change that can't be written is put back in front of the queue and the write is tried again later, so the changes after it aren't written before it. Once it has failed
+     * {@link #MAX_ATTEMPTS} times, or if the writer has stopped, it's dropped.
+     */
+    private void write() {
+        Change change;
+
+        media.flush();
+
+        while (true) {
+            synchronized (this) {
+                pendingWrite = null; // Changes queued while this one is written schedule another write
+
+                if ((change = pending.pollFirst()) == null) {
+                    notifyAll();
+
+                    return;
+                }
+
+                writing = change;
+            }
+
+            boolean stored = change.write(playlistStore, entryStore);
+
+            synchronized (this) {
+                writing = null;
+                finished++;
+                notifyAll();
+
+                if (!stored && ++change.attempts < MAX_ATTEMPTS && !writer.isShutdown()) {
+                    System.err.println("Couldn't store playlist change, trying again: " + change);
+
+                    pending.addFirst(change);
+
+                    if (pendingWrite != null) {
+                        pendingWrite.cancel(false);
+                    }
+
+                    pendingWrite = writer.schedule(this::write, RETRY_DELAY << (change.attempts - 1), TimeUnit.MILLISECONDS);
+
+                    return;
+                }
+            }
+
+            if (!stored) {
+                System.err.println("Couldn't store playlist change: " + change);
+            }
+        }
+    }
+
+    /**
+     * Writes the queued changes and waits until every one of them has been written, or dropped after its last attempt, including the changes queued while waiting.
+     */
+    public void flush() {
+        if (writer.isShutdown()) {
+            write(); // Written by the caller once the writer has stopped
+
+            return;
+        }
+
+        try {
+            writer.submit(this::write).get(); // Queued after any write that has already started
+
+            synchronized (this) {
+                while ((!pending.isEmpty() || writing != null) && !writer.isShutdown()) {
+                    wait(); // A change that failed is tried again later, see write()
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the queued changes and stops the background thread.
+     */
+    @Override
+    public void close() {
+        flush();
+
+        synchronized (this) {
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+            }
+        }
+
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        write(); // Queued while the writer was stopping
+    }
+
+    /**
+     * Change to a playlist that is waiting to be written.
+     */
+    private static class Change {
+        private final Type type;
+        private String playlist;              // Name of the playlist after the change
+        private final String oldName;         // Name of the playlist before it's renamed
+        private final ArrayList<Media> media; // Media files added or removed
+        private int attempts;                 // Number of times writing the change has failed
+        private boolean unchecked;            // Whether media files were added while the playlist wasn't read, so some may be in it already
+
+        private Change(Type type, String playlist, String oldName, ArrayList<Media> media) {
+            this.type = type;
+            this.playlist = playlist;
+            this.oldName = oldName;
+            this.media = media;
+        }
+
+        /**
+         * @return {@code true} if the change is to the playlist, under its name before or after the change
+         */
+        private boolean concerns(String name) {
+            return playlist.equals(name) || name.equals(oldName);
+        }
+
+        private boolean write(PlaylistRepository playlistStore, PlaylistEntryRepository entryStore) {
+            switch (type) {
+                case CREATE:
+                    return playlistStore.createPlaylist(playlist);
+                case RENAME:
+                    return playlistStore.renamePlaylist(oldName, playlist);
+                case DELETE:
+                    return playlistStore.deletePlaylist(playlist);
+                case ADD:
+                    if (unchecked) {
+                        Set<String> stored = new HashSet<>();
+
+                        entryStore.findEntries(playlist).forEach(m -> stored.add(m.getPath()));
+                        media.removeIf(m -> stored.contains(m.getPath())); // The store rejects a batch with a media file that already is in the playlist
+                        unchecked = false;
+                    }
+
+                    return media.isEmpty() || entryStore.addEntries(playlist, media);
+                default:
+                    return entryStore.removeEntry(playlist, media.get(0));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + (oldName != null ? oldName + " -> " : "") + playlist + (media != null ? " (" + media.size() + " media files)" : "");
+        }
+
+        private enum Type {
+            CREATE,
+            RENAME,
+            DELETE,
+            ADD,
+            REMOVE
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Stores which media files are in which playlists.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories#entries()
+ * @since 18.10.2026
+ */
+public interface PlaylistEntryRepository {
+
+    /**
+     * @param playlist name of the playlist
+     * @return media files of the playlist, in the order they were added
+     */
+    ArrayList<Media> findEntries(String playlist);
+
+    /**
+     * Adds media files to the end of a playlist in a single transaction.
+     *
+     * @param playlist name of the playlist
+     * @param media    media files to be added
+     * @return {@code true} if every media file was added
+     */
+    boolean addEntries(String playlist, Collection<Media> media);
+
+    /**
+     * @param playlist name of the playlist
+     * @param media    media file to be removed from the playlist
+     * @return {@code true} if the media file was removed
+     */
+    boolean removeEntry(String playlist, Media media);
+}
@@ -0,0 +1,48 @@
+package spaget;
+
+import java.util.ArrayList;
+
+/**
+ * Stores the playlists, identified by their names.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories#playlists()
+ * @see PlaylistEntryRepository
+ * @since 18.10.2026
+ */
+public interface PlaylistRepository {
+
+    /**
+     * Retrieves every stored playlist.
+     *
+     * @param headersOnly whether only the names are read, leaving the media files to be read the first time {@link Playlist#getMediaList()} is called
+     * @return stored playlists
+     */
+    ArrayList<Playlist> findPlaylists(boolean headersOnly);
+
+    boolean playlistExists(String name);
+
+    /**
+     * @param name name of the new playlist
+     * @return {@code true} if the playlist was created, or {@code false} if a playlist with the name already exists
+     */
+    boolean createPlaylist(String name);
+
+    /**
+     * Renames a playlist. Its media files are kept.
+     *
+     * @param name    current name of the playlist
+     * @param newName new name of the playlist
+     * @return {@code true} if the playlist was renamed
+     */
+    boolean renamePlaylist(String name, String newName);
+
+    /**
+     * Deletes a playlist together with its entries. The media files themselves are kept.
+     *
+     * @param name name of the playlist
+     * @return {@code true} if the playlist was deleted
+     */
+    boolean deletePlaylist(String name);
+}
@@ -0,0 +1,204 @@
+package spaget;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link Connection} borrowed from a {@link ConnectionPool} together with a cache of its prepared statements.
+ * <p>
+ * Closing a {@code PooledConnection} hands it back to the pool instead of closing the underlying connection, so it can be used with {@code try-with-resources}. Statements returned by
+ * {@link #prepareStatement(String)} belong to the cache and must not be closed by the caller. A nested borrow on the same thread that prepares the sql of a statement still used by an outer borrow
+ * gets a statement of its own, which is closed when the nested borrow is released.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private final Map<PreparedStatement, Integer> holdsAtUse = new IdentityHashMap<>();   // Number of holds when each cached statement was handed out, while that borrow is held
+    private final Map<PreparedStatement, Integer> uncached = new IdentityHashMap<>();     // Statements prepared by nested borrows, by the number of holds they are closed below
+
+    private int holds;
+    private boolean broken;
+    private long lastUsed = System.currentTimeMillis();
+
+    /**
+     * Sole constructor.
+     *
+     * @param pool               pool the connection is returned to
+     * @param connection         physical connection to the database
+     * @param statementCacheSize maximum number of cached prepared statements
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+
+        /* Least recently used statements are closed once the cache is full, or when their borrow is released if an outer borrow may still be reading their results */
+
+        statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+
+                Integer held = holdsAtUse.remove(eldest.getValue());
+
+                if (held != null) {
+                    uncached.put(eldest.getValue(), held);
+                } else {
+                    closeQuietly(eldest.getValue());
+                }
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached {@code PreparedStatement} for the {@code sql}, preparing it on first use.
+     * <p>
+     * If the cached statement was handed out to an outer borrow that is still held, it may still be executing, so a new statement is prepared that is closed when this borrow is released.
+     *
+     * @param sql the sql string to be prepared
+     * @return prepared statement with its parameters cleared
+     * @throws SQLException if the statement couldn't be prepared
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+
+        try {
+            if (statement != null && holdsAtUse.getOrDefault(statement, holds) < holds) {
+                statement = connection.prepareStatement(sql); // The cached statement is in use by an outer borrow
+                uncached.put(statement, holds);
+
+                return statement;
+            }
+
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+        } catch (SQLException e) {
+            broken = !isValid(1);
+
+            throw e;
+        }
+
+        holdsAtUse.put(statement, holds);
+
+        return statement;
+    }
+
+    /**
+     * @return the underlying {@code Connection}, e.g. for transaction control
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Marks the connection as unusable so the pool closes it instead of reusing it.
+     */
+    public void markBroken() {
+        broken = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    boolean isValid(int timeout) {
+        try {
+            return connection.isValid(timeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void acquire() {
+        holds++;
+    }
+
+    /**
+     * Releases one hold on the connection. The connection is returned to the pool once every borrow on the owning thread has been released.
+     * <p>
+     * A transaction left open by the caller is rolled back before the connection is reused.
+     */
+    @Override
+    public void close() {
+        if (holds <= 0) {
+            return; // Already released, so it isn't handed back to the pool twice
+        }
+
+        holds--;
+        holdsAtUse.values().removeIf(held -> held > holds); // Statements of the released borrow are free again
+
+        for (Iterator<Map.Entry<PreparedStatement, Integer>> iterator = uncached.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<PreparedStatement, Integer> entry = iterator.next();
+
+            if (entry.getValue() > holds) {
+                closeQuietly(entry.getKey());
+                iterator.remove();
+            }
+        }
+
+        if (holds > 0) {
+            return;
+        }
+
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+
+            broken = true;
+        }
+
+        lastUsed = System.currentTimeMillis();
+        pool.release(this);
+    }
+
+    /**
+     * Closes every cached statement and the underlying connection.
+     */
+    void closePhysical() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+
+        statements.clear();
+        holdsAtUse.clear();
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
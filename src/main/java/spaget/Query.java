@@ -0,0 +1,155 @@
+package spaget;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Result of a select whose rows are mapped to objects one at a time while they are read.
+ * <p>
+ * A {@code Query} holds a pooled connection until it's closed, so it should be used with {@code try-with-resources}. It can only be iterated once.
+ *
+ * @param <T> type of the mapped rows
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see DB#query(String, RowMapper, Object...)
+ * @since 18.10.2026
+ */
+public class Query<T> implements Iterable<T>, AutoCloseable {
+    private final PooledConnection con;
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+    private boolean iterated;
+    private boolean closed;
+
+    /**
+     * Executes the select and keeps the connection until the {@code Query} is closed.
+     *
+     * @param sql        parameterized sql string
+     * @param fetchSize  number of rows the driver fetches per round trip
+     * @param mapper     maps each row to an object
+     * @param parameters values bound to the {@code ?} placeholders, in order
+     * @throws SQLException if the select couldn't be executed
+     */
+    Query(String sql, int fetchSize, RowMapper<T> mapper, Object... parameters) throws SQLException {
+        this.mapper = mapper;
+
+        con = DB.getConnection();
+
+        try {
+            PreparedStatement ps = con.prepareStatement(sql);
+
+            for (int i = 0; i < parameters.length; i++) {
+                ps.setObject(i + 1, parameters[i]);
+            }
+
+            ps.setFetchSize(fetchSize);
+
+            long start = System.nanoTime();
+            rs = ps.executeQuery();
+
+            Metrics.database().recordQuery(start);
+        } catch (SQLException e) {
+            con.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the rows have already been iterated
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("The rows of a query can only be read once");
+        }
+
+        iterated = true;
+
+        return new Iterator<>() {
+            private Boolean hasNext; // Null until the cursor has been moved to the next row
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        hasNext = rs.next();
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+                }
+
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                hasNext = null;
+
+                try {
+                    T row = mapper.map(rs);
+
+                    Metrics.database().recordRowMapped();
+
+                    return row;
+                } catch (SQLException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return sequential {@code Stream} of the mapped rows which closes the {@code Query} when it's closed
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**
+     * @return every remaining row as an {@code ArrayList}
+     */
+    public ArrayList<T> toList() {
+        ArrayList<T> list = new ArrayList<>();
+
+        for (T row : this) {
+            list.add(row);
+        }
+
+        return list;
+    }
+
+    /**
+     * Closes the result set and gives the connection back to the pool. Closing a {@code Query} more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package spaget;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Provides the repositories of the store selected with {@code store} in {@code db.properties}.
+ * <p>
+ * {@code store=sqlserver}, the default, uses the SQL Server database configured in the same file. {@code store=embedded} uses an {@link EmbeddedStore} in the file given by {@code store.file},
+ * which needs no database server.
+ * <p>
+ * The playlists and their media files are kept in a {@link PlaylistCache} in front of the store, so they can be changed without waiting for it. Changes to the media files are written by a
+ * {@link MediaWriteQueue}, in batches of up to {@code write.batchSize} media files, waiting {@code write.delay} milliseconds for further changes, and making callers wait once
+ * {@code write.capacity} media files are queued.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class Repositories {
+    private static final long PLAYLIST_WRITE_DELAY = 250; // Milliseconds to wait for further changes to the playlists before they are written
+
+    private static final MediaWriteQueue media;
+    private static final PlaylistCache playlists;
+    private static final AutoCloseable store;
+
+    private Repositories() {
+    }
+
+    static {
+        Properties props = new Properties();
+
+        try (InputStream input = new FileInputStream("db.properties")) {
+            props.load(input);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+
+        String type = props.getProperty("store", "sqlserver").trim();
+        long writeDelay = Long.parseLong(props.getProperty("write.delay", "200"));
+        int writeBatchSize = Integer.parseInt(props.getProperty("write.batchSize", "5000"));
+        int writeCapacity = Integer.parseInt(props.getProperty("write.capacity", "50000"));
+
+        if (type.equalsIgnoreCase("embedded")) {
+            EmbeddedStore embeddedStore = new EmbeddedStore(Paths.get(props.getProperty("store.file", "spaget.store")).toAbsolutePath());
+
+            media = new MediaWriteQueue(embeddedStore, writeDelay, writeBatchSize, writeCapacity);
+            playlists = new PlaylistCache(embeddedStore, embeddedStore, media, PLAYLIST_WRITE_DELAY);
+            store = embeddedStore;
+        } else {
+            if (!type.equalsIgnoreCase("sqlserver")) {
+                System.err.println("Unknown store \"" + type + "\" in db.properties, using sqlserver");
+            }
+
+            SqlServerStore sqlServerStore = new SqlServerStore();
+
+            media = new MediaWriteQueue(sqlServerStore, writeDelay, writeBatchSize, writeCapacity);
+            playlists = new PlaylistCache(sqlServerStore, sqlServerStore, media, PLAYLIST_WRITE_DELAY);
+            store = sqlServerStore;
+        }
+    }
+
+    public static MediaWriteQueue media() {
+        return media;
+    }
+
+    public static PlaylistRepository playlists() {
+        return playlists;
+    }
+
+    public static PlaylistEntryRepository entries() {
+        return playlists;
+    }
+
+    /**
+     * Writes the queued changes to the playlists and media files and closes the store when the application is closed.
+     */
+    public static void close() {
+        playlists.close();
+        media.close();
+
+        try {
+            store.close();
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package spaget;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@code ResultSet} to an object.
+ *
+ * @param <T> type of the mapped objects
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see DB#query(String, RowMapper, Object...)
+ * @since 18.10.2026
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row. Implementations must not move the cursor.
+     *
+     * @param rs result set positioned at the row to map
+     * @return object representing the row
+     * @throws SQLException if a column couldn't be read
+     */
+    T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,256 @@
+package spaget;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of the metadata read from media files, keyed by path.
+ * <p>
+ * An entry is only used while the file's size and last modified time are unchanged, so a file is only parsed again after it has been modified. Entries of files that weren't seen during the last
+ * full scan are dropped when the cache is saved.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see LibraryScanner
+ * @since 18.10.2026
+ */
+public class ScanCache {
+    private static final int MAGIC = 0x53504754;  // "SPGT"
+    private static final int VERSION = 3;
+
+    static final byte OTHER = 0;
+    static final byte AUDIO = 1;
+    static final byte VIDEO = 2;
+
+    static final int UNPROBED = -1; // Length of a video that hasn't been measured yet
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>(); // Entries read from the file
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();       // Paths looked up or added since the cache was last saved
+    private volatile boolean dirty;
+
+    /**
+     * Sole constructor.
+     *
+     * @param file path of the cache file
+     */
+    public ScanCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the cache file. A missing, outdated, or corrupt file results in an empty cache.
+     */
+    public void load() {
+        entries.clear();
+        seen.clear();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+
+            int count = in.readInt();
+
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+
+                entries.put(path, new Entry(in.readLong(), in.readLong(), in.readByte(), in.readUTF(), in.readUTF(), in.readInt(), in.readUTF()));
+            }
+        } catch (NoSuchFileException e) {
+            // First scan, nothing is cached yet
+        } catch (IOException e) {
+            System.err.println("Scan cache is unreadable and will be rebuilt: " + e.getMessage());
+
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the cached metadata of a file if it hasn't changed since it was cached.
+     *
+     * @param path     absolute path of the file
+     * @param size     current size of the file in bytes
+     * @param modified current last modified time of the file
+     * @return cached metadata, or {@code null} if there is none or the file has changed
+     */
+    public Entry get(String path, long size, long modified) {
+        Entry entry = entries.get(path);
+
+        if (entry == null || entry.size != size || entry.modified != modified) {
+            return null;
+        }
+
+        seen.add(path);
+
+        return entry;
+    }
+
+    /**
+     * Caches the metadata of a file that has been parsed.
+     *
+     * @param path  absolute path of the file
+     * @param entry metadata of the file
+     */
+    public void put(String path, Entry entry) {
+        entries.put(path, entry);
+        seen.add(path);
+        dirty = true;
+    }
+
+    /**
+     * Updates the length of a cached file, e.g. once the length of a video has been measured. The change is written by the next {@link #save()} or {@link #flush()}.
+     *
+     * @param path   absolute path of the file
+     * @param length length of the file in seconds
+     */
+    public void setLength(String path, int length) {
+        Entry entry = entries.get(path);
+
+        if (entry != null && entry.length != length) {
+            entries.put(path, new Entry(entry.size, entry.modified, entry.type, entry.title, entry.artist, length, entry.artwork));
+            dirty = true;
+        }
+    }
+
+    /**
+     * @return number of files in the cache, which is the number of files the last complete scan found
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes the entry of a file that has been deleted. The change is written by the next {@link #save()} or {@link #flush()}.
+     *
+     * @param path absolute path of the file
+     */
+    public void remove(String path) {
+        seen.remove(path);
+
+        if (entries.remove(path) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Removes the entries of every file inside a folder that has been deleted. The change is written by the next {@link #save()} or {@link #flush()}.
+     *
+     * @param folder absolute path of the folder
+     */
+    public void removeFolder(String folder) {
+        String prefix = folder + File.separator;
+
+        seen.removeIf(path -> path.startsWith(prefix));
+
+        if (entries.keySet().removeIf(path -> path.startsWith(prefix))) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the entries seen since the last save to the cache file, if anything has changed. Called at the end of a scan, once every file has been looked up.
+     */
+    public void save() {
+        if (!dirty && seen.size() == entries.size()) {
+            seen.clear();
+
+            return;
+        }
+
+        entries.keySet().retainAll(seen);
+
+        if (write()) {
+            seen.clear();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Writes every entry to the cache file if anything has changed, without dropping entries that weren't seen. Used after files have been scanned one at a time.
+     */
+    public void flush() {
+        if (dirty && write()) {
+            dirty = false;
+        }
+    }
+
+    /**
+     * Writes every entry to the cache file.
+     *
+     * @return {@code true} if the file was written
+     */
+    private boolean write() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp"); // Written first so a crash never leaves a half written cache
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            Map<String, Entry> snapshot = new HashMap<>(entries);
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                Entry entry = e.getValue();
+
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.writeByte(entry.type);
+                out.writeUTF(entry.title);
+                out.writeUTF(entry.artist);
+                out.writeInt(entry.length);
+                out.writeUTF(entry.artwork);
+            }
+        } catch (IOException e) {
+            System.err.println("Scan cache couldn't be written: " + e.getMessage());
+
+            return false;
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Scan cache couldn't be written: " + e.getMessage());
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Cached metadata of a single file.
+     */
+    static class Entry {
+        final long size;
+        final long modified;
+        final byte type;
+        final String title;
+        final String artist;
+        final int length;
+        final String artwork; // Hash of the album cover in the ArtworkStore, or an empty string if the file has none
+
+        Entry(long size, long modified, byte type, String title, String artist, int length, String artwork) {
+            this.size = size;
+            this.modified = modified;
+            this.type = type;
+            this.title = title;
+            this.artist = artist;
+            this.length = length;
+            this.artwork = artwork;
+        }
+    }
+}
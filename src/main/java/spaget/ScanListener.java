@@ -0,0 +1,45 @@
+package spaget;
+
+/**
+ * Receives the progress of a {@link LibraryScanner} scan and can cancel it.
+ * <p>
+ * Methods are called on the scanner's threads, one for each device the library folders are on. Calls to {@link #found(Media)} and {@link #progress(int, int)} are serialized, so an
+ * implementation needs no locking of its own, but files of different library folders are reported in no particular order. {@link #isCancelled()} may be called from any of the threads at
+ * the same time.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public interface ScanListener {
+
+    /**
+     * Listener that ignores progress and never cancels.
+     */
+    ScanListener NONE = new ScanListener() {
+    };
+
+    /**
+     * Called for every media file found by the scan.
+     *
+     * @param media media file that has been scanned
+     */
+    default void found(Media media) {
+    }
+
+    /**
+     * Called after each file has been scanned.
+     *
+     * @param done  number of files scanned so far
+     * @param total number of files to be scanned, or {@code -1} if it isn't known yet
+     */
+    default void progress(int done, int total) {
+    }
+
+    /**
+     * @return {@code true} if the scan should stop as soon as possible
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package spaget;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the files visited by the {@link LibraryScanner} and times the phases of updating the library.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Metrics#scanner()
+ * @since 18.10.2026
+ */
+public class ScannerMetrics implements ScannerMetricsMXBean {
+    private final LongAdder filesVisited = new LongAdder();
+    private final LongAdder bytesVisited = new LongAdder();
+    private final LongAdder filesParsed = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class); // Filled once, so it can be read without locking
+
+    /**
+     * Sole constructor.
+     */
+    public ScannerMetrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @param bytes size of the file
+     */
+    void recordVisited(long bytes) {
+        filesVisited.increment();
+        bytesVisited.add(bytes);
+    }
+
+    void recordSkipped() {
+        filesSkipped.increment();
+    }
+
+    /**
+     * @param start  value of {@code System.nanoTime()} before the file was parsed
+     * @param failed whether the file couldn't be parsed
+     */
+    void recordParsed(long start, boolean failed) {
+        filesParsed.increment();
+        parseLatency.recordSince(start);
+
+        if (failed) {
+            filesFailed.increment();
+        }
+    }
+
+    /**
+     * @param phase phase that has been completed
+     * @param start value of {@code System.nanoTime()} when the phase started
+     */
+    void recordPhase(Phase phase, long start) {
+        phases.get(phase).recordSince(start);
+    }
+
+    @Override
+    public long getFilesVisited() {
+        return filesVisited.sum();
+    }
+
+    @Override
+    public long getBytesVisited() {
+        return bytesVisited.sum();
+    }
+
+    @Override
+    public long getFilesParsed() {
+        return filesParsed.sum();
+    }
+
+    @Override
+    public long getFilesSkipped() {
+        return filesSkipped.sum();
+    }
+
+    @Override
+    public long getFilesFailed() {
+        return filesFailed.sum();
+    }
+
+    @Override
+    public LatencyHistogram getParseLatency() {
+        return parseLatency;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram> getPhases() {
+        Map<String, LatencyHistogram> named = new LinkedHashMap<>();
+
+        phases.forEach((phase, histogram) -> named.put(phase.name(), histogram));
+
+        return named;
+    }
+
+    @Override
+    public void reset() {
+        filesVisited.reset();
+        bytesVisited.reset();
+        filesParsed.reset();
+        filesSkipped.reset();
+        filesFailed.reset();
+        parseLatency.reset();
+        phases.values().forEach(LatencyHistogram::reset);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Scanner[visited=" + getFilesVisited() + " (" + getBytesVisited() + " bytes), parsed=" + getFilesParsed() + ", skipped=" + getFilesSkipped() +
+                ", failed=" + getFilesFailed() + ", parse latency (" + parseLatency + ")");
+
+        phases.forEach((phase, histogram) -> {
+            if (histogram.getCount() > 0) {
+                text.append(", ").append(phase).append(" (").append(histogram).append(")");
+            }
+        });
+
+        return text.append("]").toString();
+    }
+
+    /**
+     * Phases of updating the library, in the order they happen.
+     */
+    public enum Phase {
+        LOAD_CACHE,     // The scan cache is read
+        WALK,           // The library folders are walked and new or modified files are parsed
+        SAVE_CACHE,     // The scan cache is written
+        READ_DATABASE,  // The stored media files are read
+        STORE_CHANGES,  // The changes to the library are stored
+        RECONCILE       // The catalog is reconciled with the library
+    }
+}
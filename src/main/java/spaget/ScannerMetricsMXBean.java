@@ -0,0 +1,55 @@
+package spaget;
+
+import java.util.Map;
+
+/**
+ * Counters and timings of the library scans, readable through {@code JMX} as {@code spaget:type=Scanner}.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see ScannerMetrics
+ * @since 18.10.2026
+ */
+public interface ScannerMetricsMXBean {
+
+    /**
+     * @return number of regular files found in the library folders
+     */
+    long getFilesVisited();
+
+    /**
+     * @return total size of the files found in the library folders
+     */
+    long getBytesVisited();
+
+    /**
+     * @return number of files that were new or modified and had to be parsed
+     */
+    long getFilesParsed();
+
+    /**
+     * @return number of unchanged files read from the scan cache instead of being parsed
+     */
+    long getFilesSkipped();
+
+    /**
+     * @return number of files that couldn't be parsed
+     */
+    long getFilesFailed();
+
+    /**
+     * @return time it took to parse a single file
+     */
+    LatencyHistogram getParseLatency();
+
+    /**
+     * @return time each phase of updating the library took, by the name of the phase
+     * @see ScannerMetrics.Phase
+     */
+    Map<String, LatencyHistogram> getPhases();
+
+    /**
+     * Sets every counter and timing to zero.
+     */
+    void reset();
+}
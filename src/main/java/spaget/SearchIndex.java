@@ -0,0 +1,239 @@
+package spaget;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index of the words in the titles and artists of media files.
+ * <p>
+ * Words are normalized to lower case without accents. A query matches a media file if every word of the query is the start of a word in its title or artist. Matches are ranked by how well they
+ * match: whole words rank above prefixes, and title words rank above artist words. The index is updated one media file at a time as the library changes.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class SearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final NavigableMap<String, Set<Media>> words = new TreeMap<>(); // Media files by every word of their title and artist
+    private final Map<Media, Entry> entries = new HashMap<>();              // Words of each indexed media file
+
+    /**
+     * Replaces the contents of the index.
+     *
+     * @param media every media file to be indexed
+     */
+    public synchronized void rebuild(Collection<Media> media) {
+        words.clear();
+        entries.clear();
+
+        for (Media m : media) {
+            add(m);
+        }
+    }
+
+    /**
+     * Applies changes made to the library.
+     *
+     * @param delta changes made to the library
+     */
+    public synchronized void apply(LibraryDelta delta) {
+        for (Media media : delta.getRemoved()) {
+            remove(media);
+        }
+
+        for (Media media : delta.getUpdated()) {
+            remove(media);
+            add(media);
+        }
+
+        for (Media media : delta.getAdded()) {
+            remove(media);
+            add(media);
+        }
+    }
+
+    public synchronized void add(Media media) {
+        Entry entry = new Entry(tokenize(media.getTitle()), tokenize(media.getArtist()));
+
+        entries.put(media, entry);
+
+        for (String word : entry.title) {
+            words.computeIfAbsent(word, key -> new HashSet<>()).add(media);
+        }
+
+        for (String word : entry.artist) {
+            words.computeIfAbsent(word, key -> new HashSet<>()).add(media);
+        }
+    }
+
+    public synchronized void remove(Media media) {
+        Entry entry = entries.remove(media); // Media files are equal if their paths are equal, so an updated media file removes its old words
+
+        if (entry != null) {
+            removeWords(media, entry.title);
+            removeWords(media, entry.artist);
+        }
+    }
+
+    private void removeWords(Media media, String[] tokens) {
+        for (String word : tokens) {
+            Set<Media> set = words.get(word);
+
+            if (set != null && set.remove(media) && set.isEmpty()) {
+                words.remove(word);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds every media file matching the {@code query}.
+     *
+     * @param query text typed by the user
+     * @return matches ranked from best to worst, or an unfiltered result if the query contains no words
+     */
+    public synchronized SearchResult search(String query) {
+        long start = System.nanoTime();
+        String[] terms = tokenize(query);
+
+        if (terms.length == 0) {
+            return new SearchResult(query, List.of(), false, System.nanoTime() - start);
+        }
+
+        /* Media files matching every term. Only the term matching the fewest media files is looked up in the index, and its matches are checked for the other terms */
+
+        Collection<Set<Media>> candidates = null;
+        int fewest = Integer.MAX_VALUE;
+
+        for (String term : terms) {
+            Collection<Set<Media>> sets = words.subMap(term, true, term + Character.MAX_VALUE, false).values();
+            int count = 0;
+
+            for (Set<Media> set : sets) {
+                count += set.size();
+            }
+
+            if (count < fewest) {
+                candidates = sets;
+                fewest = count;
+            }
+        }
+
+        Set<Media> matches = new HashSet<>();
+
+        for (Set<Media> set : candidates) {
+            matches.addAll(set);
+        }
+
+        if (terms.length > 1) {
+            matches.removeIf(media -> !entries.get(media).matches(terms));
+        }
+
+        /* Rank the matches */
+
+        Map<Media, Integer> scores = new HashMap<>(matches.size() * 4 / 3 + 1);
+
+        for (Media media : matches) {
+            scores.put(media, entries.get(media).score(terms));
+        }
+
+        List<Media> ranked = new ArrayList<>(matches);
+        ranked.sort(Comparator.<Media>comparingInt(scores::get).reversed().thenComparing(Media::getTitle, String.CASE_INSENSITIVE_ORDER));
+
+        return new SearchResult(query, ranked, true, System.nanoTime() - start);
+    }
+
+    /**
+     * Splits a text into normalized words.
+     *
+     * @param text text to be split
+     * @return distinct lower case words without accents
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Words of an indexed media file.
+     */
+    private static class Entry {
+        private final String[] title;
+        private final String[] artist;
+
+        private Entry(String[] title, String[] artist) {
+            this.title = title;
+            this.artist = artist;
+        }
+
+        /**
+         * @return {@code true} if every term is the start of a title or artist word
+         */
+        private boolean matches(String[] terms) {
+            for (String term : terms) {
+                if (score(term, title, 4) == 0 && score(term, artist, 2) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * @return the sum of each term's best match: 4 for a whole title word, 3 for the start of a title word, 2 for a whole artist word, and 1 for the start of an artist word
+         */
+        private int score(String[] terms) {
+            int score = 0;
+
+            for (String term : terms) {
+                score += Math.max(score(term, title, 4), score(term, artist, 2));
+            }
+
+            return score;
+        }
+
+        private static int score(String term, String[] words, int whole) {
+            int best = 0;
+
+            for (String word : words) {
+                if (word.equals(term)) {
+                    return whole;
+                } else if (word.startsWith(term)) {
+                    best = whole - 1;
+                }
+            }
+
+            return best;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package spaget;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranked media files matching a search query.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see SearchIndex#search(String)
+ * @since 18.10.2026
+ */
+public class SearchResult {
+    private final String query;
+    private final List<Media> matches;
+    private final boolean filtered;
+    private final long latency;
+    private final Map<Media, Integer> ranks;
+
+    /**
+     * Sole constructor.
+     *
+     * @param query    text that was searched for
+     * @param matches  matching media files, from best to worst
+     * @param filtered {@code false} if the query contained no words, so nothing should be filtered
+     * @param latency  nanoseconds the search took
+     */
+    SearchResult(String query, List<Media> matches, boolean filtered, long latency) {
+        this.query = query;
+        this.matches = matches;
+        this.filtered = filtered;
+        this.latency = latency;
+
+        ranks = new HashMap<>(matches.size() * 4 / 3 + 1);
+
+        for (int i = 0; i < matches.size(); i++) {
+            ranks.put(matches.get(i), i);
+        }
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<Media> getMatches() {
+        return matches;
+    }
+
+    public int getMatchCount() {
+        return matches.size();
+    }
+
+    public boolean isFiltered() {
+        return filtered;
+    }
+
+    /**
+     * @return nanoseconds the search took
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    public boolean matches(Media media) {
+        return ranks.containsKey(media);
+    }
+
+    /**
+     * @param media a media file
+     * @return position of the media file among the matches, or {@link Integer#MAX_VALUE} if it doesn't match
+     */
+    public int getRank(Media media) {
+        return ranks.getOrDefault(media, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,250 @@
+package spaget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositories backed by the SQL Server database configured in {@code db.properties}, through {@link DB}.
+ * <p>
+ * Every change is sent as parameterized statements, and changes made together are sent as a {@link Batch} in a single transaction.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @see Repositories
+ * @since 18.10.2026
+ */
+public class SqlServerStore implements MediaRepository, PlaylistRepository, PlaylistEntryRepository, AutoCloseable {
+    private static final String SELECT_MEDIA = "SELECT fldPath, fldTitle, fldArtist, fldLength FROM tblMedia";
+    private static final String INSERT_MEDIA = "INSERT INTO tblMedia (fldPath, fldTitle, fldArtist, fldLength) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_MEDIA = "DELETE FROM tblMedia WHERE fldPath = ?";
+    private static final String UPDATE_MEDIA = "UPDATE tblMedia SET fldTitle = ?, fldArtist = ?, fldLength = ? WHERE fldPath = ?";
+    private static final String COUNT_MEDIA = "SELECT COUNT(*) FROM tblMedia";
+    private static final String FILTER_MEDIA = "(fldTitle LIKE ? ESCAPE '\\' OR fldArtist LIKE ? ESCAPE '\\')";
+
+    private static final String SELECT_PLAYLISTS = "SELECT fldName FROM tblPlaylist";
+    private static final String SELECT_PLAYLISTS_WITH_MEDIA = "SELECT p.fldName, m.fldPath, m.fldTitle, m.fldArtist, m.fldLength FROM tblPlaylist p " +
+            "LEFT JOIN tblPlaylistMedia pm ON pm.fldPlaylistName = p.fldName LEFT JOIN tblMedia m ON m.fldPath = pm.fldMediaPath";
+    private static final String SELECT_PLAYLIST = "SELECT 1 FROM tblPlaylist WHERE fldName = ?";
+    private static final String INSERT_PLAYLIST = "INSERT INTO tblPlaylist (fldName) VALUES (?)";
+    private static final String RENAME_PLAYLIST = "UPDATE tblPlaylist SET fldName = ? WHERE fldName = ?";
+    private static final String DELETE_PLAYLIST = "DELETE FROM tblPlaylist WHERE fldName = ?";
+
+    private static final String SELECT_ENTRIES = "SELECT m.fldPath, m.fldTitle, m.fldArtist, m.fldLength FROM tblPlaylistMedia pm JOIN tblMedia m ON m.fldPath = pm.fldMediaPath " +
+            "WHERE pm.fldPlaylistName = ?";
+    private static final String INSERT_ENTRY = "INSERT INTO tblPlaylistMedia (fldPlaylistName, fldMediaPath) VALUES (?, ?)";
+    private static final String DELETE_ENTRY = "DELETE FROM tblPlaylistMedia WHERE fldPlaylistName = ? AND fldMediaPath = ?";
+    private static final String DELETE_ENTRIES = "DELETE FROM tblPlaylistMedia WHERE fldPlaylistName = ?";
+
+    /* Media */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If {@code fldArtist} in the database is empty, artist is read as an empty {@code String} instead of {@code null}.
+     */
+    @Override
+    public ArrayList<Media> findAll() {
+        return DB.queryList(SELECT_MEDIA, Media::map);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A missing title or artist is stored as an empty {@code String}, since the pages of the library are sorted on them.
+     */
+    @Override
+    public boolean apply(LibraryDelta delta) {
+        Batch batch = new Batch(DB.getBatchSize()); // Collects every change so they are sent in a few round trips
+
+        for (Media media : delta.getRemoved()) {
+            batch.add(DELETE_MEDIA, media.getPath());
+        }
+
+        for (Media media : delta.getAdded()) {
+            batch.add(INSERT_MEDIA, media.getPath(), orEmpty(media.getTitle()), orEmpty(media.getArtist()), media.getLength());
+        }
+
+        for (Media media : delta.getUpdated()) {
+            batch.add(UPDATE_MEDIA, orEmpty(media.getTitle()), orEmpty(media.getArtist()), media.getLength(), media.getPath());
+        }
+
+        return batch.execute();
+    }
+
+    /**
+     * @return {@code text}, or an empty {@code String} if it's {@code null}, so the sort columns never hold {@code NULL}
+     */
+    private static String orEmpty(String text) {
+        return text != null ? text : "";
+    }
+
+    @Override
+    public int count(String filter) {
+        List<Object> parameters = new ArrayList<>();
+        ArrayList<Integer> count = DB.queryList(COUNT_MEDIA + where(filter, null, null, false, parameters), rs -> rs.getInt(1), parameters.toArray());
+
+        return count.isEmpty() ? 0 : count.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The page is read with {@code TOP} and a condition on the sort column and path, so the database seeks to the page instead of reading the rows before it, given an index on the sort column
+     * and {@code fldPath}. The condition skips rows whose sort column is {@code NULL}, which the player never writes; those of older databases are replaced by "Migrate Sort Columns.sql".
+     */
+    @Override
+    public List<Media> findPage(MediaSort sort, boolean descending, String filter, Media after, int limit) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(limit);
+
+        String sql = "SELECT TOP (?) fldPath, fldTitle, fldArtist, fldLength FROM tblMedia" + where(filter, sort, after, descending, parameters) + orderBy(sort, descending);
+
+        return DB.queryList(sql, Media::map, parameters.toArray());
+    }
+
+    @Override
+    public List<Media> findPage(MediaSort sort, boolean descending, String filter, int offset, int limit) {
+        List<Object> parameters = new ArrayList<>();
+
+        String sql = SELECT_MEDIA + where(filter, sort, null, descending, parameters) + orderBy(sort, descending) + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+        parameters.add(offset);
+        parameters.add(limit);
+
+        return DB.queryList(sql, Media::map, parameters.toArray());
+    }
+
+    /**
+     * Builds the {@code WHERE} clause of a page, adding its parameters.
+     *
+     * @param filter text the title or artist must start with, or an empty {@code String}
+     * @param after  media file the page follows, or {@code null}
+     * @return the clause, or an empty {@code String} if there are no conditions
+     */
+    private static String where(String filter, MediaSort sort, Media after, boolean descending, List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+
+        if (!filter.isEmpty()) {
+            String pattern = filter.replaceAll("([\\\\%_\\[])", "\\\\$1") + "%"; // Wildcards typed by the user are matched literally
+
+            conditions.add(FILTER_MEDIA);
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+
+        if (after != null) {
+            String operator = descending ? " < ?" : " > ?";
+
+            conditions.add("(" + sort.getColumn() + operator + " OR (" + sort.getColumn() + " = ? AND fldPath" + operator + "))");
+            parameters.add(sort.getValue(after));
+            parameters.add(sort.getValue(after));
+            parameters.add(after.getPath());
+        }
+
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String orderBy(MediaSort sort, boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+
+        return " ORDER BY " + sort.getColumn() + direction + ", fldPath" + direction;
+    }
+
+    /* Playlists */
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Every playlist and its media files are read with a single query.
+     */
+    @Override
+    public ArrayList<Playlist> findPlaylists(boolean headersOnly) {
+        if (headersOnly) {
+            return DB.queryList(SELECT_PLAYLISTS, rs -> new Playlist(rs.getString(1).trim(), false));
+        }
+
+        Map<String, Playlist> playlists = new LinkedHashMap<>(); // Playlists in the order they are read
+
+        try (Query<Void> query = DB.query(SELECT_PLAYLISTS_WITH_MEDIA, rs -> {
+            Playlist playlist = playlists.computeIfAbsent(rs.getString(1).trim(), name -> new Playlist(name, true));
+
+            if (rs.getString(2) != null) {
+                playlist.add(Media.map(rs, 2));
+            }
+
+            return null;
+        })) {
+            query.forEach(row -> {}); // Rows are added to their playlist while they are mapped
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+        }
+
+        return new ArrayList<>(playlists.values());
+    }
+
+    @Override
+    public boolean playlistExists(String name) {
+        return !DB.queryList(SELECT_PLAYLIST, rs -> rs.getInt(1), name).isEmpty();
+    }
+
+    @Override
+    public boolean createPlaylist(String name) {
+        return DB.update(INSERT_PLAYLIST, name) > 0;
+    }
+
+    @Override
+    public boolean renamePlaylist(String name, String newName) {
+        return DB.update(RENAME_PLAYLIST, newName, name) > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deletePlaylist(String name) {
+        Batch batch = new Batch(DB.getBatchSize());
+
+        batch.add(DELETE_ENTRIES, name);
+        batch.add(DELETE_PLAYLIST, name);
+
+        return batch.execute();
+    }
+
+    /* Playlist entries */
+
+    @Override
+    public ArrayList<Media> findEntries(String playlist) {
+        return DB.queryList(SELECT_ENTRIES, Media::map, playlist);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addEntries(String playlist, Collection<Media> media) {
+        Batch batch = new Batch(DB.getBatchSize());
+
+        for (Media m : media) {
+            batch.add(INSERT_ENTRY, playlist, m.getPath());
+        }
+
+        return batch.execute();
+    }
+
+    @Override
+    public boolean removeEntry(String playlist, Media media) {
+        return DB.update(DELETE_ENTRY, playlist, media.getPath()) > 0;
+    }
+
+    /**
+     * Closes the pooled connections.
+     */
+    @Override
+    public void close() {
+        if (DB.getPool() != null) {
+            DB.getPool().close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package spaget;
+
+/**
+ * Formats seconds as {@code hours:minutes:seconds} into a buffer that is reused for every call.
+ * <p>
+ * The text of the last value is kept, so formatting the same second again, as the transport is updated several times a second, returns the same {@code String} without allocating anything. A new
+ * {@code String} is only created when the value changes.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class TimeFormatter {
+    private static final int MAX_LENGTH = 16; // Long enough for any int number of seconds
+
+    private final char[] buffer = new char[MAX_LENGTH];
+    private int last = -1;
+    private String text = "";
+
+    /**
+     * @param totalSeconds seconds to be formatted
+     * @return formatted {@code String}, the same instance as the last call if the seconds are the same
+     */
+    public String format(int totalSeconds) {
+        if (totalSeconds != last) {
+            int start = write(totalSeconds, buffer);
+
+            last = totalSeconds;
+            text = new String(buffer, start, MAX_LENGTH - start);
+        }
+
+        return text;
+    }
+
+    /**
+     * Converts seconds to {@code hours:minutes:seconds} without any intermediate objects.
+     *
+     * @param totalSeconds seconds to be converted
+     * @return formatted {@code String}
+     */
+    public static String formatSeconds(int totalSeconds) {
+        char[] buffer = new char[MAX_LENGTH];
+        int start = write(totalSeconds, buffer);
+
+        return new String(buffer, start, MAX_LENGTH - start);
+    }
+
+    /**
+     * Writes the formatted seconds to the end of the buffer, with at least two digits for the hours.
+     *
+     * @return index of the first character written
+     */
+    private static int write(int totalSeconds, char[] buffer) {
+        int value = Math.max(totalSeconds, 0);
+        int i = MAX_LENGTH;
+
+        i = writeTwoDigits(value % 60, buffer, i);
+        buffer[--i] = ':';
+        i = writeTwoDigits(value % 3600 / 60, buffer, i);
+        buffer[--i] = ':';
+
+        int hours = value / 3600;
+
+        do {
+            buffer[--i] = (char) ('0' + hours % 10);
+            hours /= 10;
+        } while (hours > 0);
+
+        if (i == MAX_LENGTH - 7) {
+            buffer[--i] = '0'; // Single digit hours are padded
+        }
+
+        return i;
+    }
+
+    private static int writeTwoDigits(int value, char[] buffer, int end) {
+        buffer[end - 1] = (char) ('0' + value % 10);
+        buffer[end - 2] = (char) ('0' + value / 10);
+
+        return end - 2;
+    }
+}
@@ -0,0 +1,105 @@
+package spaget;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.media.MediaPlayer;
+
+/**
+ * Updates the current time label and the seek slider from a single loop capped at a number of updates per second, instead of on every change to the player's current time.
+ * <p>
+ * A node is only changed when what it shows changes: the label when the second changes, and the slider when its thumb would move by at least a pixel. The time is formatted by a
+ * {@link TimeFormatter}, so updates that don't change anything allocate nothing. The loop stops while the window is minimized and while there is no player. Updates that are missed
+ * because the application thread is busy are counted, see {@link PlaybackMetrics#getDroppedUiUpdates()}.
+ * <p>
+ * Every method must be called on the {@code JavaFX} application thread.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class TransportUpdater extends AnimationTimer {
+    private final long interval; // Nanoseconds between two updates
+    private final Label labelTime;
+    private final Slider sliderSeek;
+    private final TimeFormatter formatter = new TimeFormatter();
+
+    private MediaPlayer player;
+    private boolean minimized;
+    private boolean running;
+    private long lastUpdate;
+    private int shownSeconds = -1;
+
+    /**
+     * Sole constructor.
+     *
+     * @param rate       maximum number of updates per second
+     * @param labelTime  label showing the current time
+     * @param sliderSeek slider showing the current position, which isn't moved while the user holds it
+     */
+    public TransportUpdater(double rate, Label labelTime, Slider sliderSeek) {
+        this.interval = (long) (1_000_000_000 / Math.max(rate, 1));
+        this.labelTime = labelTime;
+        this.sliderSeek = sliderSeek;
+    }
+
+    /**
+     * @param player player whose current time is shown, or {@code null} to stop updating
+     */
+    public void setPlayer(MediaPlayer player) {
+        this.player = player;
+
+        shownSeconds = -1;
+        lastUpdate = 0;
+
+        schedule();
+    }
+
+    /**
+     * @param minimized whether the window is minimized, in which case nothing is updated
+     */
+    public void setMinimized(boolean minimized) {
+        this.minimized = minimized;
+
+        schedule();
+    }
+
+    private void schedule() {
+        boolean run = player != null && !minimized;
+
+        if (run && !running) {
+            start();
+        } else if (!run && running) {
+            stop();
+        }
+
+        running = run;
+    }
+
+    @Override
+    public void handle(long now) {
+        if (now - lastUpdate < interval) {
+            return;
+        }
+
+        Metrics.playback().recordUiUpdate(lastUpdate == 0 ? 0 : (now - lastUpdate) / interval - 1); // Intervals that passed without an update while the application thread was busy
+
+        lastUpdate = now;
+
+        double seconds = player.getCurrentTime().toSeconds();
+        int wholeSeconds = (int) Math.round(seconds);
+
+        if (wholeSeconds != shownSeconds) {
+            shownSeconds = wholeSeconds;
+            labelTime.setText(formatter.format(wholeSeconds));
+        }
+
+        if (!sliderSeek.isPressed()) {
+            double pixel = sliderSeek.getMax() / Math.max(sliderSeek.getWidth(), 1); // Seconds the thumb moves per pixel
+
+            if (Math.abs(sliderSeek.getValue() - seconds) >= pixel) {
+                sliderSeek.setValue(seconds);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package spaget;
+
+import javafx.application.Platform;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Measures the length of videos in the background, since it can't be read from their tags.
+ * <p>
+ * A video is measured by loading it in a {@code JavaFX} {@code MediaPlayer}, which is disposed as soon as its duration is known. At most {@code concurrency} players exist at a time, and a video
+ * that isn't ready within the timeout is given up on. Measured videos are passed on in batches, so their lengths can be written to the database in a few round trips. Videos that couldn't be
+ * measured are passed on with a length of {@code 0}, so they aren't measured again until the file changes.
+ *
+ * @author Denis Cokanovic, Morten Kristensen, Niclas Liedke, Rasmus Hansen
+ * @version 4.0.0
+ * @since 18.10.2026
+ */
+public class VideoProber implements LengthProber {
+    private static final int BATCH_SIZE = 64;       // Number of measured videos that are passed on at once
+    private static final long BATCH_DELAY = 1000;   // Maximum milliseconds a measured video is held back before it's passed on
+
+    private final Semaphore permits;
+    private final long timeout;
+    private final Consumer<List<Media>> onProbed;
+    private final BlockingQueue<Media> queue = new LinkedBlockingQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet(); // Paths of the videos that are queued or being measured
+    private final ScheduledExecutorService timer;
+    private final Thread dispatcher;
+
+    private final List<Media> probed = new ArrayList<>(); // Measured videos that haven't been passed on yet
+    private ScheduledFuture<?> pendingFlush;
+
+    private final AtomicInteger measured = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger timedOut = new AtomicInteger();
+
+    /**
+     * Starts the prober, which waits for videos to be {@link #submit(Collection) submitted}.
+     *
+     * @param concurrency maximum number of videos measured at the same time
+     * @param timeout     milliseconds a video may take to be ready before it's given up on
+     * @param onProbed    receives the measured videos in batches, called on a background thread
+     */
+    public VideoProber(int concurrency, long timeout, Consumer<List<Media>> onProbed) {
+        this.permits = new Semaphore(Math.max(1, concurrency));
+        this.timeout = timeout;
+        this.onProbed = onProbed;
+
+        timer = Executors.newScheduledThreadPool(2, runnable -> { // A batch that is being written doesn't hold back the timeouts
+            Thread thread = new Thread(runnable, "spaget-probe-timer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        dispatcher = new Thread(this::dispatch, "spaget-video-prober");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public void submit(Collection<Media> videos) {
+        for (Media video : videos) {
+            if (queued.add(video.getPath())) {
+                queue.add(video);
+            }
+        }
+    }
+
+    /**
+     * Starts measuring the queued videos as soon as a player is available.
+     */
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Media video = queue.take();
+
+                permits.acquire();
+                probe(video);
+            }
+        } catch (InterruptedException e) {
+            // The prober has been closed
+        }
+    }
+
+    /**
+     * Loads a video in a temporary {@code MediaPlayer} and measures its length once it's ready.
+     *
+     * @param video video to be measured
+     */
+    private void probe(Media video) {
+        Probe probe = new Probe(video);
+
+        try {
+            probe.player = new MediaPlayer(new javafx.scene.media.Media(Paths.get(video.getPath()).toUri().toString()));
+        } catch (Exception e) {
+            System.err.println("Couldn't measure " + video.getPath() + ": " + e.getMessage());
+
+            failed.incrementAndGet();
+            finish(probe, 0);
+
+            return;
+        }
+
+        probe.player.setOnReady(() -> {
+            Duration duration = probe.player.getTotalDuration();
+
+            if (duration == null || duration.isUnknown() || duration.isIndefinite()) {
+                failed.incrementAndGet();
+                finish(probe, 0);
+            } else {
+                measured.incrementAndGet();
+                finish(probe, (int) Math.round(duration.toSeconds()));
+            }
+        });
+
+        probe.player.setOnError(() -> {
+            System.err.println("Couldn't measure " + video.getPath() + ": " + probe.player.getError().getMessage());
+
+            failed.incrementAndGet();
+            finish(probe, 0);
+        });
+
+        probe.timeout = timer.schedule(() -> {
+            System.err.println("Gave up measuring " + video.getPath() + " after " + timeout + " ms");
+
+            timedOut.incrementAndGet();
+            finish(probe, 0);
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Disposes the player of a probe and collects the result. Only the first call for a probe has any effect, since a probe may be ready, fail, and time out at almost the same time.
+     */
+    private void finish(Probe probe, int length) {
+        if (!probe.finished.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (probe.timeout != null) {
+            probe.timeout.cancel(false);
+        }
+
+        if (probe.player != null) {
+            Platform.runLater(probe.player::dispose); // The player may still be delivering events on the JavaFX thread
+        }
+
+        permits.release();
+        queued.remove(probe.video.getPath());
+
+        synchronized (this) {
+            probed.add(new Media(probe.video.getPath(), probe.video.getTitle(), probe.video.getArtist(), length));
+
+            try {
+                if (probed.size() >= BATCH_SIZE) {
+                    timer.execute(this::flush);
+                } else if (pendingFlush == null) {
+                    pendingFlush = timer.schedule(this::flush, BATCH_DELAY, TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                // The prober has been closed, so the video is measured again the next time the library is scanned
+            }
+        }
+    }
+
+    /**
+     * Passes the measured videos on to the {@code onProbed} consumer.
+     */
+    private void flush() {
+        List<Media> batch;
+
+        synchronized (this) {
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+                pendingFlush = null;
+            }
+
+            if (probed.isEmpty()) {
+                return;
+            }
+
+            batch = new ArrayList<>(probed);
+            probed.clear();
+        }
+
+        try {
+            onProbed.accept(batch);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return number of videos that are queued or being measured
+     */
+    public int getPending() {
+        return queued.size();
+    }
+
+    public int getMeasured() {
+        return measured.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * Stops measuring videos and passes on the videos that have already been measured. Videos that weren't measured are measured again the next time the library is scanned.
+     */
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+        timer.shutdownNow();
+
+        flush();
+    }
+
+    /**
+     * Temporary player of a video that is being measured.
+     */
+    private static class Probe {
+        private final Media video;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile MediaPlayer player;
+        private volatile ScheduledFuture<?> timeout;
+
+        private Probe(Media video) {
+            this.video = video;
+        }
+    }
+}